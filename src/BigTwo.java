@@ -1,24 +1,23 @@
 import java.util.ArrayList;
-import java.awt.*;
 import javax.swing.*;
 
 /**
- * The BigTwo class implements the CardGame interface. It is used to model a Big Two card game.
+ * The BigTwo class implements the CardGame interface. It is used to model a Big Two card game
+ * played over the network through a BigTwoGUI. The rules and the state of the game are held by a
+ * BigTwoEngine, which this class subscribes to in order to update the GUI.
  * 
  * @author DaveMatthew
  */
-public class BigTwo implements CardGame {
+public class BigTwo implements CardGame, BigTwoListener {
 
 	/**
 	 * a constructor for creating a Big Two card game.
 	 */
 	public BigTwo() {
-		this.playerList = new ArrayList<CardGamePlayer>();
-		CardGamePlayer[] playersTemp = {new CardGamePlayer(), new CardGamePlayer(), new CardGamePlayer(), new CardGamePlayer()};
-		for (int i = 0; i<playersTemp.length; i++) {
-			this.playerList.add(playersTemp[i]);
-			
-		}
+		this.engine = new BigTwoEngine(4);
+		this.engine.addListener(this);
+		// decodes the images of the GUI while the player enters his/her name
+		ImageCache.preload();
 		
 		playerName = JOptionPane.showInputDialog(null,"Enter Name: ");
 
@@ -35,7 +34,6 @@ public class BigTwo implements CardGame {
 
 		setPlayerName(playerName);
 		this.GUI = new BigTwoGUI(this);
-		this.handsOnTable = new ArrayList<Hand>();
 		this.client = new BigTwoClient(this, this.GUI);
 		
 		// load the GUI
@@ -44,21 +42,9 @@ public class BigTwo implements CardGame {
 	}
 	
 	/**
-	 * a deck of cards.
-	 */
-	private Deck deck;
-	/**
-	 * a list of players.
+	 * the engine holding the state and enforcing the rules of the game.
 	 */
-	private ArrayList<CardGamePlayer> playerList;
-	/**
-	 * a list of hands played on the table.
-	 */
-	private ArrayList<Hand> handsOnTable;
-	/**
-	 * an integer specifying the index of the current player.
-	 */
-	private int currentPlayerIdx;
+	private final BigTwoEngine engine;
 	/**
 	 * a BigTwoGUI object which builds the GUI for the game and handles all user actions.
 	 */
@@ -130,6 +116,15 @@ public class BigTwo implements CardGame {
 		this.client = client;
 	}
 	
+	/**
+	 * a method for getting the engine holding the state of the game.
+	 * 
+	 * @return the BigTwoEngine of this game
+	 */
+	public BigTwoEngine getEngine() {
+		return this.engine;
+	}
+	
 	/**
 	 * a method for getting the number of players.
 	 * 
@@ -138,7 +133,7 @@ public class BigTwo implements CardGame {
 	@Override
 	public int getNumOfPlayers() {
 		
-		return this.playerList.size();
+		return engine.getNumOfPlayers();
 	}
 
 	/**
@@ -149,7 +144,7 @@ public class BigTwo implements CardGame {
 	@Override
 	public Deck getDeck() {
 		
-		return this.deck;
+		return engine.getDeck();
 	}
 
 	/**
@@ -160,7 +155,7 @@ public class BigTwo implements CardGame {
 	@Override
 	public ArrayList<CardGamePlayer> getPlayerList() {
 		
-		return this.playerList;
+		return engine.getPlayerList();
 	}
 
 	/**
@@ -171,7 +166,7 @@ public class BigTwo implements CardGame {
 	@Override
 	public ArrayList<Hand> getHandsOnTable() {
 		
-		return this.handsOnTable;
+		return engine.getHandsOnTable();
 	}
 
 	/**
@@ -182,7 +177,7 @@ public class BigTwo implements CardGame {
 	@Override
 	public int getCurrentPlayerIdx() {
 		
-		return this.currentPlayerIdx;
+		return engine.getCurrentPlayerIdx();
 	}
 	
 	/**
@@ -191,24 +186,7 @@ public class BigTwo implements CardGame {
 	 * @param deck getting the deck that has been initialized for the game.
 	 */
 	public void distributeCard(Deck deck) {
-		//startIndex to know which player should start (i.e. the player holding 3 diamond card)
-		int startIndex = 0;
-		
-		//distribute the cards in the deck to the players using nested for loop
-		for (int i = 0; i<deck.size()/this.getPlayerList().size(); i++) {
-			for (int j = 0; j<this.getPlayerList().size(); j++) {
-				if (deck.getCard(i*this.getPlayerList().size() + j).getRank() == 2 && deck.getCard(i*this.getPlayerList().size() + j).getSuit() == 0) {
-					startIndex = j;
-				}
-				this.getPlayerList().get(j).addCard(deck.getCard((i)*this.getPlayerList().size() + j));
-			}
-		}
-	
-		//sort the cards that the players have by using the sort method for each player
-		for (int i = 0; i<getPlayerList().size(); i++) {
-			this.getPlayerList().get(i).sortCardsInHand();
-		}
-		this.currentPlayerIdx = startIndex;
+		engine.distributeCard(deck);
 	}
 
 	/**
@@ -219,30 +197,44 @@ public class BigTwo implements CardGame {
 	@Override
 	public void start(Deck deck) {
 		
-		this.deck = deck;
-		
 		this.GUI.clearMsgArea();
 		this.GUI.printMsg("All players are ready. Game starts." + '\n');
 		
-		// (i) remove all the cards from the players as well as from the table.
-		this.handsOnTable.clear();
-		for (int i = 0; i<this.getPlayerList().size(); i++) {
-			this.getPlayerList().get(i).removeAllCards();
-		}
+		// the engine removes all the cards from the players and the table, distributes the cards
+		// and sets the current player to the player who holds the 3 of Diamonds
+		engine.start(deck);
+	}
+
+	/**
+	 * a method for starting/restarting the game with the cards dealt by the server. Only the
+	 * cards of the local player are known; the other players hold the specified numbers of
+	 * hidden cards.
+	 * 
+	 * @param currentPlayerIdx the index of the player who moves first
+	 * @param numOfCards the number of cards held by every player
+	 * @param cards the cards of the local player
+	 */
+	public void start(int currentPlayerIdx, int[] numOfCards, CardList cards) {
 		
-		// (ii) distribute the cards to the players
-		// (iii) identify the player who holds the 3 of Diamonds
-		// (iv) set the currentIdx of the BigTwo instance to the playerID (i.e., index) of the player who holds the 3 of Diamonds
-		// the distributeCard method will identify and set the player who holds the 3 of diamond as the currentPlayerIdx
-		this.distributeCard(deck);
+		this.GUI.clearMsgArea();
+		this.GUI.printMsg("All players are ready. Game starts." + '\n');
 		
-		// (v) set the activePlayer of the BigTwoGUI instance to the playerID (i.e., index) of the local player 
-		// (i.e., only shows the cards of the local player and the local player can only select cards from his/her own hand)
-		GUI.setActivePlayer(this.client.getPlayerID());
-	
-		started = true;
+		engine.start(this.client.getPlayerID(), cards, numOfCards, currentPlayerIdx);
+	}
+
+	/**
+	 * a method for replacing the state of the game with a snapshot sent by the server, after
+	 * the client has missed some moves.
+	 * 
+	 * @param currentPlayerIdx the index of the current player
+	 * @param numOfCards the number of cards held by every player
+	 * @param lastHandPlayerIdx the index of the player of the last hand on the table, or -1
+	 * @param lastHandCards the cards of the last hand on the table, or null
+	 * @param cards the cards of the local player
+	 */
+	public void restore(int currentPlayerIdx, int[] numOfCards, int lastHandPlayerIdx, CardList lastHandCards, CardList cards) {
 		
-		//GUI.repaint();
+		engine.restore(this.client.getPlayerID(), cards, numOfCards, currentPlayerIdx, lastHandPlayerIdx, lastHandCards);
 	}
 
 	/**
@@ -268,107 +260,29 @@ public class BigTwo implements CardGame {
 	 * @param cardIdx an integer specifying the index of the cards
 	 */
 	@Override
-	public synchronized void checkMove(int playerID, int[] cardIdx) {
+	public void checkMove(int playerID, int[] cardIdx) {
 		
-		CardList cards = new CardList();
-		if (cardIdx == null) {
-			if (handsOnTable.size()!=0 && handsOnTable.get(handsOnTable.size()-1).getPlayer() != this.getPlayerList().get(this.currentPlayerIdx)) {
-				this.currentPlayerIdx = (this.getCurrentPlayerIdx()+1)%4;
-				GUI.printMsg("[pass]" + '\n');
-				if (this.getCurrentPlayerIdx() == GUI.getActivePlayer()) {
-					GUI.promptActivePlayer();
-				}
-				else {
-					GUI.printMsg(this.getPlayerList().get(this.getCurrentPlayerIdx()).getName() + "'s turn:" + '\n');
-				}
-				GUI.resetSelected();
-				GUI.repaint();
-			}
-			else {
-				GUI.printMsg("Not a legal move!!!" +'\n');
-			}
-		}
-		else {
-			for (int i = 0; i<cardIdx.length; i++) {
-				cards.addCard(this.getPlayerList().get(playerID).getCardsInHand().getCard(cardIdx[i]));
-			}
-			Hand hand = this.composeHand(this.getPlayerList().get(playerID), this.getPlayerList().get(playerID).play(cardIdx));
-			if (hand != null) {
-				if (handsOnTable.size() == 0) {
-					if (hand.contains(this.getPlayerList().get(currentPlayerIdx).getCardsInHand().getCard(0)) && hand.isValid()) {
-						this.handsOnTable.add(hand);
-						this.getPlayerList().get(playerID).removeCards(hand);
-						this.currentPlayerIdx = (this.getCurrentPlayerIdx()+1)%4;
-						if (this.getCurrentPlayerIdx() == GUI.getActivePlayer()) {
-							GUI.printMsg(hand.getType() + " " + hand.toString() + '\n' + "Your turn:" + '\n');
-						}
-						else {
-							GUI.printMsg(hand.getType() + " " + hand.toString() + '\n' + this.getPlayerList().get(this.getCurrentPlayerIdx()).getName() + "'s turn:" + '\n');
-						}
-						GUI.resetSelected();
-						GUI.repaint();
-					}
-					else {
-						GUI.printMsg("Not a legal move!!!" + '\n');
-					}
-				}
-				else if (hand.getPlayer() == handsOnTable.get(handsOnTable.size()-1).getPlayer()) {
-					if (hand.isValid()) {
-						this.handsOnTable.add(hand);
-						this.getPlayerList().get(playerID).removeCards(hand);
-						if (this.endOfGame()) {
-							
-							GUI.repaint();
-							GUI.printMsg( '\n' + "Game has ended!!! Thanks for playing!!!" + "\n");
-							GUI.resetSelected();
-							
-						}
-						else {
-							GUI.printMsg(hand.getType() + " " + hand.toString() + '\n');
-							this.currentPlayerIdx = (this.getCurrentPlayerIdx()+1)%4;
-							GUI.resetSelected();
-							if (this.getCurrentPlayerIdx() == GUI.getActivePlayer()) {
-								GUI.printMsg("Your turn:" + '\n');
-							}
-							else {
-								GUI.printMsg(this.getPlayerList().get(this.getCurrentPlayerIdx()).getName() + "'s turn:" + '\n');
-							}
-							GUI.repaint();
-						}
-					}
-					else {
-						GUI.printMsg(" Not a legal move!!!" + '\n');
-					}
-				}
-				else if (hand.size() == handsOnTable.get(handsOnTable.size()-1).size() && hand.isValid() && hand.beats(handsOnTable.get(handsOnTable.size()-1))) {
-					this.handsOnTable.add(hand);
-					this.getPlayerList().get(playerID).removeCards(hand);
-					if (this.endOfGame()) {
-						GUI.repaint();
-						GUI.printMsg("Game has ended!!! Thanks for playing!!!");
-						GUI.resetSelected();
-						
-					}
-					else {
-						this.currentPlayerIdx = (this.getCurrentPlayerIdx()+1)%4;
-						if (this.getCurrentPlayerIdx() == GUI.getActivePlayer()) {
-							GUI.printMsg(hand.getType() + " " + hand.toString() + '\n' + "Your turn:" + '\n');
-						}
-						else {
-							GUI.printMsg(hand.getType() + " " + hand.toString() + '\n' + this.getPlayerList().get(this.getCurrentPlayerIdx()).getName() + "'s turn:" + '\n');
-						}
-						GUI.resetSelected();
-						GUI.repaint();
-					}
-				}
-				else {
-					GUI.printMsg("Not a legal move!!!" + '\n');
-				}
-			}
-			else {
-				GUI.printMsg("Not a legal move!!!" + '\n');
+		engine.applyMove(playerID, cardIdx);
+	}
+	
+	/**
+	 * a method for applying a move broadcast by the server as the set of the cards played, 
+	 * which is how the moves of a game dealt by the server are sent.
+	 * 
+	 * @param playerID an integer specifying the index of the player
+	 * @param cardBits the bits of the cards played (see CardSet), or null for a pass
+	 */
+	public void checkCards(int playerID, Long cardBits) {
+		
+		CardList cards = null;
+		if (cardBits != null) {
+			cards = new CardList();
+			CardSet set = new CardSet(cardBits);
+			for (int i = set.nextIndex(0); i >= 0; i = set.nextIndex(i + 1)) {
+				cards.addCard(BigTwoCard.valueOf(i));
 			}
 		}
+		engine.applyCards(playerID, cards);
 	}
 
 	/**
@@ -379,15 +293,88 @@ public class BigTwo implements CardGame {
 	@Override
 	public boolean endOfGame() {
 		
-		if (this.getClient().getIsStarted() && this.getClient().getIsConnected()) {
-			
-			for (int i = 0; i<this.getNumOfPlayers(); i++) {
-				if (this.getPlayerList().get(i).getNumOfCards() == 0) {
-					return true;
-				}
-			}
+		return this.getClient().getIsStarted() && this.getClient().getIsConnected() && engine.endOfGame();
+	}
+	
+	/**
+	 * a method for printing whose turn it is to the GUI.
+	 */
+	private void printTurn() {
+		if (this.getCurrentPlayerIdx() == GUI.getActivePlayer()) {
+			GUI.promptActivePlayer();
 		}
-		return false;
+		else {
+			GUI.printMsg(this.getPlayerList().get(this.getCurrentPlayerIdx()).getName() + "'s turn:" + '\n');
+		}
+	}
+	
+	// implements the BigTwoListener interface methods.
+	
+	/**
+	 * a method called by the engine when the cards have been dealt. It sets the activePlayer of the 
+	 * BigTwoGUI instance to the playerID (i.e., index) of the local player, so that only the cards of the 
+	 * local player are shown and the local player can only select cards from his/her own hand.
+	 * 
+	 * @param currentPlayerIdx the index of the player who moves first
+	 */
+	@Override
+	public void gameStarted(int currentPlayerIdx) {
+		GUI.setActivePlayer(this.client.getPlayerID());
+		started = true;
+	}
+	
+	/**
+	 * a method called by the engine when a hand has been played.
+	 * 
+	 * @param playerIdx the index of the player who played the hand
+	 * @param hand the hand played
+	 */
+	@Override
+	public void handPlayed(int playerIdx, Hand hand) {
+		if (!this.endOfGame()) {
+			GUI.printMsg(hand.getType() + " " + hand.toString() + '\n');
+			printTurn();
+			GUI.resetSelected();
+			GUI.updatePlayer(playerIdx);
+			GUI.updateTable();
+			GUI.updateTurn();
+		}
+	}
+	
+	/**
+	 * a method called by the engine when a player has passed.
+	 * 
+	 * @param playerIdx the index of the player who passed
+	 */
+	@Override
+	public void turnPassed(int playerIdx) {
+		GUI.printMsg("[pass]" + '\n');
+		printTurn();
+		GUI.resetSelected();
+		GUI.updateTurn();
+	}
+	
+	/**
+	 * a method called by the engine when a move has been rejected.
+	 * 
+	 * @param playerIdx the index of the player who made the move
+	 * @param cardIdx the indices of the cards selected
+	 */
+	@Override
+	public void illegalMove(int playerIdx, int[] cardIdx) {
+		GUI.printMsg("Not a legal move!!!" + '\n');
+	}
+	
+	/**
+	 * a method called by the engine when the game has ended.
+	 * 
+	 * @param winnerIdx the index of the player who has no cards left
+	 */
+	@Override
+	public void gameEnded(int winnerIdx) {
+		GUI.repaint();
+		GUI.printMsg('\n' + "Game has ended!!! Thanks for playing!!!" + '\n');
+		GUI.resetSelected();
 	}
 	
 	/**
@@ -399,61 +386,7 @@ public class BigTwo implements CardGame {
 	 * @return a Hand object that can be composed from the cards (i.e. Single, Pair, Triple, etc.)
 	 */
 	public static Hand composeHand(CardGamePlayer player, CardList cards) {
-		if (cards == null) {
-			return null;
-		}
-		//creating new objects of the hand's subclasses
-		Hand single = new Single(player, cards);
-		Hand pair = new Pair(player, cards);
-		Hand triple = new Triple(player, cards);
-		Hand quad = new Quad(player, cards);
-		Hand flush = new Flush(player, cards);
-		Hand fullHouse = new FullHouse(player, cards);
-		Hand straight = new Straight(player, cards);
-		Hand straightFlush = new StraightFlush(player, cards);
-		//checking if they are valid, and returns the hand if so
-		if (cards.size() == 5) {
-			if (straightFlush.isValid()) {
-				straightFlush.getType();
-				return straightFlush;
-			}
-			else if (quad.isValid()) {
-				quad.getType();
-				return quad;
-			}
-			else if (fullHouse.isValid()) {
-				fullHouse.getType();
-				return fullHouse;
-			}
-			else if (flush.isValid()) {
-				flush.getType();
-				return flush;
-			} 
-			else if (straight.isValid()) {
-				straight.getType();
-				return straight;
-			} 
-		}
-		
-		else if (cards.size() == 3) {
-			if (triple.isValid()) {
-				triple.getType();
-				return triple;
-			}
-		} 
-		else if (cards.size() == 2) {
-			if (pair.isValid()) {
-				pair.getType();
-				return pair;
-			}
- 		} 
-		else if (cards.size() == 1) {
-			if (single.isValid()) {
-				return single;
-			}
- 		}
- 		return null;
-		
+		return BigTwoEngine.composeHand(player, cards);
 	}
 	
 	
@@ -7,9 +7,41 @@
  *
  */
 public class BigTwoCard extends Card {
+	// the default serialVersionUID of the first version, so that its streams can still be read
+	private static final long serialVersionUID = -6882428045893598171L;
 	
 	/**
-	 * a constructor for building a card with the specified suit and rank. 
+	 * the canonical Big Two cards indexed by their ordinal (suit * 13 + rank).
+	 */
+	private static final BigTwoCard[] CARDS = new BigTwoCard[52];
+	
+	/**
+	 * the Big Two strength of each card indexed by its ordinal. The strength orders the cards by 
+	 * rank (0 = '3', 1 = '4', ... , 10 = 'K', 11 = 'A', 12 = '2') and then by suit.
+	 */
+	private static final int[] STRENGTH = new int[52];
+	
+	static {
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 13; j++) {
+				STRENGTH[i * 13 + j] = ((j + 11) % 13) * 4 + i;
+			}
+		}
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 13; j++) {
+				CARDS[i * 13 + j] = new BigTwoCard(i, j);
+			}
+		}
+	}
+	
+	/**
+	 * the Big Two strength of this card (0 = 3 of Diamonds, ..., 51 = 2 of Spades).
+	 */
+	private final int strength;
+	
+	/**
+	 * a constructor for building a card with the specified suit and rank. Big Two cards are
+	 * interned, so instances should be obtained through valueOf() instead.
 	 * 
 	 * @param suit an int value between 0 and 3 representing the suit of a card:
 	 *             <p>
@@ -19,8 +51,40 @@ public class BigTwoCard extends Card {
 	 *             0 = 'A', 1 = '2', 2 = '3', ..., 8 = '9', 9 = '0', 10 = 'J', 11 =
 	 *             'Q', 12 = 'K'
 	 */
-	public BigTwoCard(int suit, int rank) {
+	private BigTwoCard(int suit, int rank) {
 		super(suit,rank);
+		this.strength = STRENGTH[this.ordinal];
+	}
+	
+	/**
+	 * a method for retrieving the canonical Big Two card with the specified suit and rank.
+	 * 
+	 * @param suit an int value between 0 and 3 representing the suit of a card
+	 * @param rank an int value between 0 and 12 representing the rank of a card
+	 * @return the shared BigTwoCard instance with the specified suit and rank
+	 */
+	public static BigTwoCard valueOf(int suit, int rank) {
+		return CARDS[suit * 13 + rank];
+	}
+	
+	/**
+	 * a method for retrieving the canonical Big Two card with the specified ordinal.
+	 * 
+	 * @param ordinal an int value between 0 and 51 (suit * 13 + rank)
+	 * @return the shared BigTwoCard instance with the specified ordinal
+	 */
+	public static BigTwoCard valueOf(int ordinal) {
+		return CARDS[ordinal];
+	}
+	
+	/**
+	 * a method for replacing a deserialized card with the canonical Big Two card.
+	 * 
+	 * @return the shared BigTwoCard instance with the same suit and rank
+	 */
+	protected Object readResolve() {
+		// streams written before cards were interned have no ordinal, so it is not used here
+		return valueOf(this.suit, this.rank);
 	}
 
 	
@@ -32,18 +96,36 @@ public class BigTwoCard extends Card {
 	 *         than, equal to, or greater than the specified card
 	 */
 	public int compareTo(Card card) {
-		// modifying the rank so that the ranking system will be: 
-		// 0 = '3', 1 = '4', ... , 10 = 'K', 11 = 'A', 12 = '2'
-		if ((this.rank+11)%13 > (card.rank+11)%13) {
-			return 1;
-		} else if ((this.rank+11)%13 < (card.rank+11)%13) {
-			return -1;
-		} else if (this.suit > card.suit) {
-			return 1;
-		} else if (this.suit < card.suit) {
-			return -1;
-		} else {
-			return 0;
-		}
+		// both strengths lie in 0..51, so the difference cannot overflow
+		return this.strength - STRENGTH[card.ordinal];
+	}
+	
+	/**
+	 * a method for retrieving the Big Two strength of this card.
+	 * 
+	 * @return an int value between 0 and 51, ordered 3D, 3C, 3H, 3S, 4D, ..., 2S
+	 */
+	public int getStrength() {
+		return this.strength;
+	}
+	
+	/**
+	 * a method for retrieving the Big Two strength of the specified card, which may be any Card.
+	 * 
+	 * @param card the card whose strength is to be returned
+	 * @return an int value between 0 and 51, ordered 3D, 3C, 3H, 3S, 4D, ..., 2S
+	 */
+	public static int strengthOf(Card card) {
+		return STRENGTH[card.ordinal];
+	}
+	
+	/**
+	 * a method for retrieving the Big Two strength of the card with the specified ordinal.
+	 * 
+	 * @param ordinal an int value between 0 and 51 (suit * 13 + rank)
+	 * @return an int value between 0 and 51, ordered 3D, 3C, 3H, 3S, 4D, ..., 2S
+	 */
+	public static int strengthOf(int ordinal) {
+		return STRENGTH[ordinal];
 	}
 }
@@ -0,0 +1,267 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * The BigTwoCardBenchmark class is a small benchmark of the ordering of the Big Two cards. It times the
+ * compareTo() method of BigTwoCard, which compares the precomputed strengths of the cards, against the
+ * comparison it replaced, which worked out the Big Two rank of both cards on every call: on single
+ * comparisons, on sorting 13-card hands, and on comparing 5-card hands by their top cards. It also times
+ * Hand.beats() on straights, which sorts both hands and compares their top cards. It is a plain main()
+ * rather than a JMH benchmark, as the project has no build to run one: every measurement is repeated
+ * after a warm-up, the best round is reported, and every result is stored in a volatile field so that
+ * the work timed is not optimized away.
+ * <p>
+ * Usage: java BigTwoCardBenchmark [rounds]
+ *
+ * @author DaveMatthew
+ */
+public class BigTwoCardBenchmark {
+	/**
+	 * the number of comparisons timed in a round.
+	 */
+	private static final int NUM_OF_COMPARISONS = 10000000;
+
+	/**
+	 * the number of hands sorted in a round.
+	 */
+	private static final int NUM_OF_SORTS = 200000;
+
+	/**
+	 * the number of hand comparisons timed in a round.
+	 */
+	private static final int NUM_OF_HAND_COMPARISONS = 200000;
+
+	/**
+	 * the field storing the results of the work timed.
+	 */
+	private static volatile long blackhole;
+
+	/**
+	 * the comparison of BigTwoCard before the strengths were precomputed.
+	 */
+	private static final Comparator<Card> LEGACY_ORDER = new Comparator<Card>() {
+		@Override
+		public int compare(Card a, Card b) {
+			// modifying the rank so that the ranking system will be:
+			// 0 = '3', 1 = '4', ... , 10 = 'K', 11 = 'A', 12 = '2'
+			if ((a.rank+11)%13 > (b.rank+11)%13) {
+				return 1;
+			} else if ((a.rank+11)%13 < (b.rank+11)%13) {
+				return -1;
+			} else if (a.suit > b.suit) {
+				return 1;
+			} else if (a.suit < b.suit) {
+				return -1;
+			} else {
+				return 0;
+			}
+		}
+	};
+
+	/**
+	 * the current comparison of BigTwoCard.
+	 */
+	private static final Comparator<Card> STRENGTH_ORDER = new Comparator<Card>() {
+		@Override
+		public int compare(Card a, Card b) {
+			return a.compareTo(b);
+		}
+	};
+
+	/**
+	 * the main function of the benchmark.
+	 *
+	 * @param args the number of rounds, 5 by default
+	 */
+	public static void main(String[] args) {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		Random random = new Random(42);
+
+		// the pairs of cards compared, and the hands sorted
+		BigTwoCard[] cards = new BigTwoCard[1 << 16];
+		for (int i = 0; i < cards.length; i++) {
+			cards[i] = BigTwoCard.valueOf(random.nextInt(52));
+		}
+		BigTwoCard[][] hands = new BigTwoCard[1024][];
+		for (int i = 0; i < hands.length; i++) {
+			BigTwoDeck deck = new BigTwoDeck();
+			deck.shuffle();
+			hands[i] = new BigTwoCard[13];
+			for (int j = 0; j < 13; j++) {
+				hands[i][j] = (BigTwoCard) deck.getCard(j);
+			}
+		}
+
+		// the 5-card hands compared by their top cards, and the straights, from 3-4-5-6-7 to 10-J-Q-K-A
+		BigTwoCard[][] fiveCards = new BigTwoCard[1024][];
+		for (int i = 0; i < fiveCards.length; i++) {
+			fiveCards[i] = new BigTwoCard[5];
+			System.arraycopy(hands[i], 0, fiveCards[i], 0, 5);
+		}
+		CardGamePlayer player = new CardGamePlayer();
+		Straight[] straights = new Straight[1024];
+		for (int i = 0; i < straights.length; i++) {
+			int start = random.nextInt(8);
+			CardList straight = new CardList();
+			for (int j = 0; j < 5; j++) {
+				// the Big Two order starts from 3, i.e. rank 2
+				straight.addCard(BigTwoCard.valueOf(random.nextInt(4), (start + j + 2) % 13));
+			}
+			straights[i] = new Straight(player, straight);
+			if (!straights[i].isValid()) {
+				throw new AssertionError(straights[i]);
+			}
+		}
+
+		// checks that both comparisons give the same order before timing them
+		for (int i = 0; i + 1 < cards.length; i++) {
+			if (Integer.signum(LEGACY_ORDER.compare(cards[i], cards[i+1])) != Integer.signum(STRENGTH_ORDER.compare(cards[i], cards[i+1]))) {
+				throw new AssertionError(cards[i] + " " + cards[i+1]);
+			}
+		}
+
+		System.out.println("JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+		report("compareTo, legacy", NUM_OF_COMPARISONS, bestCompare(LEGACY_ORDER, cards, rounds));
+		report("compareTo, strength", NUM_OF_COMPARISONS, bestCompare(STRENGTH_ORDER, cards, rounds));
+		report("sort 13 cards, legacy", NUM_OF_SORTS, bestSort(LEGACY_ORDER, hands, rounds));
+		report("sort 13 cards, strength", NUM_OF_SORTS, bestSort(STRENGTH_ORDER, hands, rounds));
+		report("top cards of 5, legacy", NUM_OF_HAND_COMPARISONS, bestTopCards(LEGACY_ORDER, fiveCards, rounds));
+		report("top cards of 5, strength", NUM_OF_HAND_COMPARISONS, bestTopCards(STRENGTH_ORDER, fiveCards, rounds));
+		report("Hand.beats, straights", NUM_OF_HAND_COMPARISONS, bestBeats(straights, rounds));
+	}
+
+	/**
+	 * a method for timing the comparisons of consecutive cards.
+	 *
+	 * @param order the comparison timed
+	 * @param cards the cards compared
+	 * @param rounds the number of rounds timed after the warm-up
+	 * @return the time of the best round, in nanoseconds
+	 */
+	private static long bestCompare(Comparator<Card> order, BigTwoCard[] cards, int rounds) {
+		long best = Long.MAX_VALUE;
+		int mask = cards.length - 1;
+		long sink = 0;
+		for (int r = -1; r < rounds; r++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < NUM_OF_COMPARISONS; i++) {
+				sink += order.compare(cards[i & mask], cards[(i + 1) & mask]);
+			}
+			long time = System.nanoTime() - start;
+			// the first round only warms up
+			if (r >= 0) {
+				best = Math.min(best, time);
+			}
+		}
+		blackhole = sink;
+		return best;
+	}
+
+	/**
+	 * a method for timing the sorting of hands.
+	 *
+	 * @param order the comparison timed
+	 * @param hands the hands sorted, which are copied before every sort
+	 * @param rounds the number of rounds timed after the warm-up
+	 * @return the time of the best round, in nanoseconds
+	 */
+	private static long bestSort(Comparator<Card> order, BigTwoCard[][] hands, int rounds) {
+		long best = Long.MAX_VALUE;
+		ArrayList<Card> hand = new ArrayList<Card>(13);
+		long sink = 0;
+		for (int r = -1; r < rounds; r++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < NUM_OF_SORTS; i++) {
+				hand.clear();
+				BigTwoCard[] cards = hands[i % hands.length];
+				for (int j = 0; j < cards.length; j++) {
+					hand.add(cards[j]);
+				}
+				hand.sort(order);
+				sink += hand.get(0).ordinal;
+			}
+			long time = System.nanoTime() - start;
+			if (r >= 0) {
+				best = Math.min(best, time);
+			}
+		}
+		blackhole = sink;
+		return best;
+	}
+
+	/**
+	 * a method for timing the comparison of two 5-card hands by their top cards, as Hand.beats() does:
+	 * both hands are sorted, and their last cards are compared.
+	 *
+	 * @param order the comparison timed
+	 * @param hands the hands compared, which are copied before every sort
+	 * @param rounds the number of rounds timed after the warm-up
+	 * @return the time of the best round, in nanoseconds
+	 */
+	private static long bestTopCards(Comparator<Card> order, BigTwoCard[][] hands, int rounds) {
+		long best = Long.MAX_VALUE;
+		ArrayList<Card> hand = new ArrayList<Card>(5);
+		ArrayList<Card> other = new ArrayList<Card>(5);
+		long sink = 0;
+		for (int r = -1; r < rounds; r++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < NUM_OF_HAND_COMPARISONS; i++) {
+				hand.clear();
+				other.clear();
+				BigTwoCard[] a = hands[i % hands.length];
+				BigTwoCard[] b = hands[(i + 1) % hands.length];
+				for (int j = 0; j < 5; j++) {
+					hand.add(a[j]);
+					other.add(b[j]);
+				}
+				hand.sort(order);
+				other.sort(order);
+				sink += order.compare(hand.get(4), other.get(4));
+			}
+			long time = System.nanoTime() - start;
+			if (r >= 0) {
+				best = Math.min(best, time);
+			}
+		}
+		blackhole = sink;
+		return best;
+	}
+
+	/**
+	 * a method for timing Hand.beats() on straights.
+	 *
+	 * @param straights the straights compared
+	 * @param rounds the number of rounds timed after the warm-up
+	 * @return the time of the best round, in nanoseconds
+	 */
+	private static long bestBeats(Straight[] straights, int rounds) {
+		long best = Long.MAX_VALUE;
+		long sink = 0;
+		for (int r = -1; r < rounds; r++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < NUM_OF_HAND_COMPARISONS; i++) {
+				if (straights[i % straights.length].beats(straights[(i + 1) % straights.length])) {
+					sink++;
+				}
+			}
+			long time = System.nanoTime() - start;
+			if (r >= 0) {
+				best = Math.min(best, time);
+			}
+		}
+		blackhole = sink;
+		return best;
+	}
+
+	/**
+	 * a method for printing the time of an operation.
+	 *
+	 * @param name the name of the operation
+	 * @param count the number of operations timed
+	 * @param nanos the time taken, in nanoseconds
+	 */
+	private static void report(String name, int count, long nanos) {
+		System.out.printf("%-26s %8.2f ns/op%n", name, (double) nanos / count);
+	}
+}
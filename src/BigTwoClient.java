@@ -1,6 +1,7 @@
 import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import javax.swing.JOptionPane;
 
 /**
@@ -13,6 +14,16 @@ import javax.swing.JOptionPane;
  */
 public class BigTwoClient implements NetworkGame{
 	
+	/**
+	 * the number of attempts to reconnect to the server after the connection has been lost.
+	 */
+	private static final int RECONNECT_ATTEMPTS = 10;
+	
+	/**
+	 * the time to wait before every attempt to reconnect, in milliseconds.
+	 */
+	private static final int RECONNECT_DELAY = 1000;
+	
 	/**
 	 * a constructor for creating a Big Two client. 
 	 * The first parameter is a reference to a BigTwo object associated with this client and 
@@ -51,12 +62,17 @@ public class BigTwoClient implements NetworkGame{
 	/**
 	 * a socket connection to the game server.
 	 */
-	private Socket sock;
+	private volatile Socket sock;
 	
 	/**
-	 * an ObjectOutputStream for sending messages to the server.
+	 * a framed stream for exchanging messages with the server.
 	 */
-	private ObjectOutputStream oos;
+	private FramedMessageStream stream;
+	
+	/**
+	 * the codec of the messages, which must match the codec of the server.
+	 */
+	private MessageCodec codec = MessageCodec.create(null, BigTwoDeck::new);
 	
 	/**
 	 * an integer specifying the playerID (i.e., index) of the local player.
@@ -88,6 +104,22 @@ public class BigTwoClient implements NetworkGame{
 	 */
 	private boolean isStarted;
 	
+	/**
+	 * the sequence numbers of the changes of state of the game applied.
+	 */
+	private final GameSequence sequence = new GameSequence();
+	
+	/**
+	 * the token given by the server to resume the game after a connection loss, or 0 if none.
+	 */
+	private long sessionToken;
+	
+	/**
+	 * a boolean value that represent whether the JOIN message has been sent as the first message of
+	 * the connection, before the player list of the table is received.
+	 */
+	private boolean joinSent;
+	
 	
 	// implements the NetworkGame interface methods.
 	
@@ -202,10 +234,32 @@ public class BigTwoClient implements NetworkGame{
 	}
 	
 	
+	/**
+	 * a method for getting the codec of the messages exchanged with the server.
+	 * 
+	 * @return the codec of the messages
+	 */
+	public MessageCodec getCodec() {
+		return this.codec;
+	}
+	
+	/**
+	 * a method for setting the codec of the messages exchanged with the server,
+	 * which takes effect on the next connection. The default codec is named by
+	 * the MessageCodec.PROPERTY system property.
+	 * 
+	 * @param codec the codec of the messages
+	 */
+	public void setCodec(MessageCodec codec) {
+		this.codec = codec;
+	}
+	
 	/**
 	 * a method for making a socket connection with the game server.
-	 * Upon successful connection, it should (i) create an ObjectOutputStream for sending messages to the game server; 
-	 * (ii) create a new thread for receiving messages from the game server.
+	 * Upon successful connection, it should (i) create a FramedMessageStream for sending messages to the game server; 
+	 * (ii) send the first message, which is a RESUME message if the client holds a reconnect token, so
+	 * that the server checks the token before seating the client, or a JOIN message otherwise; 
+	 * (iii) create a new thread for receiving messages from the game server.
 	 */
 	public void connect() {
 		
@@ -214,7 +268,16 @@ public class BigTwoClient implements NetworkGame{
 				gui.printMsg("You are already connected!" + '\n');
 			} else {
 				sock = new Socket(this.getServerIP(), this.getServerPort());
-				oos = new ObjectOutputStream(sock.getOutputStream());
+				stream = new FramedMessageStream(sock, codec);
+				if (this.sessionToken != 0) {
+					// takes back the seat held by the server since the connection was lost
+					this.joinSent = false;
+					sendMessage(new CardGameMessage(CardGameMessage.RESUME, -1, Long.valueOf(this.sessionToken)));
+				}
+				else {
+					this.joinSent = true;
+					sendMessage(new CardGameMessage(1, -1, this.getPlayerName()));
+				}
 				Thread connection = new Thread(new ServerHandler());
 				connection.start();
 			}
@@ -236,10 +299,50 @@ public class BigTwoClient implements NetworkGame{
 			
 			String[] data = (String[]) message.getData();
 			this.setPlayerID(message.getPlayerID());
+			// a new table has its own sequence of changes
+			this.sequence.reset();
 			for (int i = 0; i<data.length; i++) {
 				this.game.getPlayerList().get(i).setName(data[i]);
 			}
-			sendMessage(new CardGameMessage(1, -1, this.getPlayerName()));
+			if (this.joinSent) {
+				// the server has seated the client for its JOIN message
+				this.joinSent = false;
+			}
+			else {
+				sendMessage(new CardGameMessage(1, -1, this.getPlayerName()));
+			}
+			
+		}
+		else if (message.getType() == CardGameMessage.SESSION) {
+			
+			this.sessionToken = (Long) message.getData();
+			
+		}
+		else if (message.getType() == CardGameMessage.RESUME) {
+			
+			if (message.getPlayerID() < 0) {
+				// the seat has been freed, joins the table of the player list which follows as a new player
+				this.sessionToken = 0;
+				gui.printMsg("The game could not be resumed." + '\n');
+			}
+			else {
+				String[] data = (String[]) message.getData();
+				this.setPlayerID(message.getPlayerID());
+				for (int i = 0; i<data.length; i++) {
+					this.game.getPlayerList().get(i).setName(data[i]);
+				}
+				this.sequence.reset();
+				this.setIsConnected(true);
+				gui.setActivePlayer(playerID);
+				gui.printMsg("You are back in the game." + '\n');
+				if (message.getSequence() == 0) {
+					// the game has been abandoned in the meantime, no snapshot follows
+					game.setStarted(false);
+					this.setIsStarted(false);
+					sendMessage(new CardGameMessage(4, -1, null));
+				}
+				gui.repaint();
+			}
 			
 		}
 		else if (message.getType() == CardGameMessage.JOIN) {
@@ -304,7 +407,17 @@ public class BigTwoClient implements NetworkGame{
 		}
 		else if (message.getType() == CardGameMessage.START) {
 			
-			this.game.start((BigTwoDeck) message.getData());
+			if (message.getData() instanceof int[]) {
+				// the server dealt the cards: the counts of all the players, then our cards
+				int[] data = (int[]) message.getData();
+				int numOfPlayers = this.game.getNumOfPlayers();
+				int[] numOfCards = Arrays.copyOf(data, numOfPlayers);
+				this.game.start(message.getPlayerID(), numOfCards, toCards(data, numOfPlayers, data.length));
+				this.sequence.moveTo(message.getSequence());
+			}
+			else {
+				this.game.start((BigTwoDeck) message.getData());
+			}
 			if (this.game.getCurrentPlayerIdx() == gui.getActivePlayer()) {
 				gui.printMsg("Your turn:" + '\n');
 			}
@@ -316,7 +429,38 @@ public class BigTwoClient implements NetworkGame{
 		}
 		else if (message.getType() == CardGameMessage.MOVE) {
 			
-			this.game.checkMove(message.getPlayerID(),(int[]) message.getData());
+			if (!inSequence(message)) {
+				return;
+			}
+			if (message.getData() instanceof Long) {
+				this.game.checkCards(message.getPlayerID(), (Long) message.getData());
+			}
+			else {
+				this.game.checkMove(message.getPlayerID(),(int[]) message.getData());
+			}
+			
+		}
+		else if (message.getType() == CardGameMessage.SNAPSHOT) {
+			
+			// a snapshot replaces the state of the game, unless a later change has been applied
+			if (this.sequence.isStale(message.getSequence())) {
+				return;
+			}
+			int[] data = (int[]) message.getData();
+			int numOfPlayers = this.game.getNumOfPlayers();
+			int[] numOfCards = Arrays.copyOf(data, numOfPlayers);
+			int lastHandPlayerIdx = data[numOfPlayers];
+			int lastHandEnd = numOfPlayers + 2 + data[numOfPlayers + 1];
+			CardList lastHandCards = toCards(data, numOfPlayers + 2, lastHandEnd);
+			this.game.restore(message.getPlayerID(), numOfCards, lastHandPlayerIdx, lastHandCards, toCards(data, lastHandEnd, data.length));
+			this.sequence.moveTo(message.getSequence());
+			this.setIsStarted(true);
+			gui.repaint();
+			
+		}
+		else if (message.getType() == CardGameMessage.ILLEGAL) {
+			
+			gui.printMsg("Not a legal move!!!" + '\n');
 			
 		}
 		else if (message.getType() == CardGameMessage.MSG) {
@@ -328,6 +472,65 @@ public class BigTwoClient implements NetworkGame{
 	}
 	
 
+	/**
+	 * a method for trying to connect to the game server again after the connection has been lost,
+	 * so that the game can be resumed with the reconnect token before the server frees the seat.
+	 * Nothing is done if the client has no token.
+	 */
+	private void reconnect() {
+		sock = null;
+		if (this.sessionToken == 0) {
+			return;
+		}
+		gui.printMsg("Your connection to the server has been lost. Reconnecting..." + '\n');
+		Thread reconnector = new Thread(new Runnable() {
+			public void run() {
+				for (int i = 0; i < RECONNECT_ATTEMPTS && sock == null && !getIsConnected(); i++) {
+					try {
+						Thread.sleep(RECONNECT_DELAY);
+					} catch (InterruptedException e) {
+						return;
+					}
+					connect();
+				}
+			}
+		});
+		reconnector.setDaemon(true);
+		reconnector.start();
+	}
+	
+	/**
+	 * a method for checking that the specified change of state follows the last one applied.
+	 * Changes already applied are skipped; if some changes have been missed, the server is asked
+	 * to send them again with a RESYNC message, and the change is skipped too.
+	 * 
+	 * @param message a START or MOVE message
+	 * @return true if the change should be applied; false otherwise
+	 */
+	private boolean inSequence(GameMessage message) {
+		int result = this.sequence.check(message.getSequence());
+		if (result == GameSequence.RESYNC) {
+			sendMessage(new CardGameMessage(CardGameMessage.RESYNC, -1, Integer.valueOf(this.sequence.getLastSequence())));
+		}
+		return result == GameSequence.APPLY;
+	}
+	
+	/**
+	 * a method for converting the card ordinals (see Card.getOrdinal()) sent by the server into cards.
+	 * 
+	 * @param ordinals an array containing the ordinals
+	 * @param from the index of the first ordinal
+	 * @param to the index after the last ordinal
+	 * @return a CardList object containing the cards
+	 */
+	private static CardList toCards(int[] ordinals, int from, int to) {
+		CardList cards = new CardList();
+		for (int i = from; i < to; i++) {
+			cards.addCard(BigTwoCard.valueOf(ordinals[i]));
+		}
+		return cards;
+	}
+	
 	/**
 	 * a method for sending the specified message to the game server. 
 	 * This method should be called whenever the client wants to communicate with the game server or other clients.
@@ -337,7 +540,8 @@ public class BigTwoClient implements NetworkGame{
 	public synchronized void sendMessage(GameMessage message) {
 		
 		try {
-			oos.writeObject(message);
+			stream.writeMessage(message);
+			stream.flush();
 		} catch(Exception e) {
 			e.printStackTrace();
 		}
@@ -357,22 +561,28 @@ public class BigTwoClient implements NetworkGame{
 		public void run() {
 			CardGameMessage input;
 			try {
-				ObjectInputStream streamReader = new ObjectInputStream(sock.getInputStream());
-				while((input = (CardGameMessage)streamReader.readObject()) != null ) {
+				while((input = (CardGameMessage)stream.readMessage()) != null ) {
 					parseMessage(input);
 				}
 			}
 			catch(SocketException sockEx) {
-				gui.printMsg("Your connection to the server has been lost. Press connect in the menu to reconnect" + '\n');
 				setIsConnected(false);
-				game.setStarted(false);
+				if (sessionToken == 0) {
+					gui.printMsg("Your connection to the server has been lost. Press connect in the menu to reconnect" + '\n');
+					game.setStarted(false);
+				}
 				gui.disable();
 				sockEx.printStackTrace();
+				reconnect();
 			}
 			catch(Exception e) {
-				gui.printMsg("Your connection to the server has been lost. Press connect in the menu to reconnect" + '\n');
 				setIsConnected(false);
+				if (sessionToken == 0) {
+					gui.printMsg("Your connection to the server has been lost. Press connect in the menu to reconnect" + '\n');
+				}
+				gui.disable();
 				e.printStackTrace();
+				reconnect();
 			}
 		}
 	}
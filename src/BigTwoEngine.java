@@ -0,0 +1,425 @@
+import java.util.ArrayList;
+
+/**
+ * The BigTwoEngine class implements the CardGame interface. It holds the state of a Big Two card game
+ * (the players and their cards, the hands on the table and the turn order) and enforces its rules,
+ * without any user interface or network dependency. Changes of state are reported to the registered
+ * BigTwoListener objects, so a GUI, a network client or a server can follow the game as optional
+ * subscribers, and games can be simulated headless.
+ *
+ * @author DaveMatthew
+ */
+public class BigTwoEngine implements CardGame {
+
+	/**
+	 * a deck of cards.
+	 */
+	private Deck deck;
+	/**
+	 * a list of players.
+	 */
+	private final ArrayList<CardGamePlayer> playerList;
+	/**
+	 * a list of hands played on the table.
+	 */
+	private final ArrayList<Hand> handsOnTable;
+	/**
+	 * an integer specifying the index of the current player.
+	 */
+	private int currentPlayerIdx;
+	/**
+	 * a boolean value specifying whether the cards have been dealt.
+	 */
+	private boolean started;
+	/**
+	 * a list of listeners receiving the events of this game.
+	 */
+	private final ArrayList<BigTwoListener> listeners;
+
+	/**
+	 * a constructor for creating a Big Two card game with four players.
+	 */
+	public BigTwoEngine() {
+		this(4);
+	}
+
+	/**
+	 * a constructor for creating a Big Two card game with the specified number of players.
+	 *
+	 * @param numOfPlayers the number of players
+	 */
+	public BigTwoEngine(int numOfPlayers) {
+		this.playerList = new ArrayList<CardGamePlayer>();
+		for (int i = 0; i < numOfPlayers; i++) {
+			this.playerList.add(new CardGamePlayer());
+		}
+		this.handsOnTable = new ArrayList<Hand>();
+		this.listeners = new ArrayList<BigTwoListener>();
+	}
+
+	/**
+	 * a method for registering a listener for the events of this game.
+	 *
+	 * @param listener the listener to be added
+	 */
+	public synchronized void addListener(BigTwoListener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * a method for unregistering a listener.
+	 *
+	 * @param listener the listener to be removed
+	 */
+	public synchronized void removeListener(BigTwoListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * a method for getting the number of players.
+	 *
+	 * @return an integer specifying the number of player
+	 */
+	@Override
+	public int getNumOfPlayers() {
+		return this.playerList.size();
+	}
+
+	/**
+	 * a method for retrieving the deck of cards being used.
+	 *
+	 * @return a Deck object that is being used
+	 */
+	@Override
+	public Deck getDeck() {
+		return this.deck;
+	}
+
+	/**
+	 * a method for retrieving the list of players.
+	 *
+	 * @return an ArrayList object of type CardGamePlayer containing the list of players
+	 */
+	@Override
+	public ArrayList<CardGamePlayer> getPlayerList() {
+		return this.playerList;
+	}
+
+	/**
+	 * a method for retrieving the list of hands played on the table.
+	 *
+	 * @return an ArrayList object of type Hand containing the list of hands played on the table
+	 */
+	@Override
+	public ArrayList<Hand> getHandsOnTable() {
+		return this.handsOnTable;
+	}
+
+	/**
+	 * a method for retrieving the index of the current player.
+	 *
+	 * @return an integer specifying the index of the current player
+	 */
+	@Override
+	public int getCurrentPlayerIdx() {
+		return this.currentPlayerIdx;
+	}
+
+	/**
+	 * a method for checking if the cards of the current game have been dealt.
+	 *
+	 * @return a boolean value of whether a game has been started
+	 */
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	/**
+	 * a method for distributing a deck of cards to players. The current player is set to
+	 * the player holding the 3 of Diamonds.
+	 *
+	 * @param deck getting the deck that has been initialized for the game.
+	 */
+	public void distributeCard(Deck deck) {
+		int numOfPlayers = this.playerList.size();
+		//startIndex to know which player should start (i.e. the player holding 3 diamond card)
+		int startIndex = 0;
+
+		for (int i = 0; i < deck.size() / numOfPlayers; i++) {
+			for (int j = 0; j < numOfPlayers; j++) {
+				Card card = deck.getCard(i * numOfPlayers + j);
+				if (card.getRank() == 2 && card.getSuit() == 0) {
+					startIndex = j;
+				}
+				this.playerList.get(j).addCard(card);
+			}
+		}
+
+		for (int i = 0; i < numOfPlayers; i++) {
+			this.playerList.get(i).sortCardsInHand();
+		}
+		this.currentPlayerIdx = startIndex;
+	}
+
+	/**
+	 * a method for starting/restarting the game with a given shuffled deck of cards.
+	 *
+	 * @param deck a Deck object containing shuffled deck of cards
+	 */
+	@Override
+	public synchronized void start(Deck deck) {
+		this.deck = deck;
+		this.handsOnTable.clear();
+		for (int i = 0; i < this.playerList.size(); i++) {
+			this.playerList.get(i).removeAllCards();
+		}
+		this.distributeCard(deck);
+		this.started = true;
+
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).gameStarted(this.currentPlayerIdx);
+		}
+	}
+
+	/**
+	 * a method for starting/restarting the game with the cards dealt by a server, which only
+	 * tells each player about its own cards. The other players get as many hidden cards as
+	 * they hold, and their moves are then applied with applyCards().
+	 *
+	 * @param playerIdx the index of the local player
+	 * @param cards the cards of the local player
+	 * @param numOfCards the number of cards held by every player
+	 * @param currentPlayerIdx the index of the player who moves first
+	 */
+	public synchronized void start(int playerIdx, CardList cards, int[] numOfCards, int currentPlayerIdx) {
+		restore(playerIdx, cards, numOfCards, currentPlayerIdx, -1, null);
+	}
+
+	/**
+	 * a method for replacing the state of the game with a snapshot sent by a server, which tells
+	 * each player about its own cards and the last hand on the table. The listeners are told
+	 * through gameStarted(), as after the cards have been dealt.
+	 *
+	 * @param playerIdx the index of the local player
+	 * @param cards the cards of the local player
+	 * @param numOfCards the number of cards held by every player
+	 * @param currentPlayerIdx the index of the current player
+	 * @param lastHandPlayerIdx the index of the player of the last hand on the table, or -1
+	 * @param lastHandCards the cards of the last hand on the table, or null
+	 */
+	public synchronized void restore(int playerIdx, CardList cards, int[] numOfCards, int currentPlayerIdx,
+			int lastHandPlayerIdx, CardList lastHandCards) {
+		this.deck = null;
+		this.handsOnTable.clear();
+		for (int i = 0; i < this.playerList.size(); i++) {
+			CardGamePlayer player = this.playerList.get(i);
+			player.removeAllCards();
+			if (i == playerIdx) {
+				for (int j = 0; j < cards.size(); j++) {
+					player.addCard(cards.getCard(j));
+				}
+				player.sortCardsInHand();
+			} else if (i < numOfCards.length) {
+				player.addHiddenCards(numOfCards[i]);
+			}
+		}
+		if (lastHandPlayerIdx >= 0 && lastHandPlayerIdx < this.playerList.size() && lastHandCards != null) {
+			Hand lastHand = composeHand(this.playerList.get(lastHandPlayerIdx), lastHandCards);
+			if (lastHand != null) {
+				this.handsOnTable.add(lastHand);
+			}
+		}
+		this.currentPlayerIdx = currentPlayerIdx;
+		this.started = true;
+
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).gameStarted(this.currentPlayerIdx);
+		}
+	}
+
+	/**
+	 * a method for making a move by a player. As the engine holds the whole game,
+	 * this simply checks and applies the move.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx an integer array specifying the indices of the cards, or null for a pass
+	 */
+	@Override
+	public void makeMove(int playerIdx, int[] cardIdx) {
+		checkMove(playerIdx, cardIdx);
+	}
+
+	/**
+	 * a method for checking a move made by a player and applying it if it is legal.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx an integer array specifying the indices of the cards, or null for a pass
+	 */
+	@Override
+	public void checkMove(int playerIdx, int[] cardIdx) {
+		applyMove(playerIdx, cardIdx);
+	}
+
+	/**
+	 * a method for checking a move made by a player and applying it if it is legal.
+	 * Listeners are told about the outcome in both cases.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx an integer array specifying the indices of the cards, or null for a pass
+	 * @return true if the move was legal and has been applied; otherwise false
+	 */
+	public synchronized boolean applyMove(int playerIdx, int[] cardIdx) {
+		if (!this.started || this.endOfGame() || playerIdx != this.currentPlayerIdx) {
+			fireIllegalMove(playerIdx, cardIdx);
+			return false;
+		}
+		if (cardIdx == null) {
+			return pass(playerIdx, cardIdx);
+		}
+		return play(playerIdx, cardIdx, this.playerList.get(playerIdx).play(cardIdx));
+	}
+
+	/**
+	 * a method for checking a move given as the cards played, rather than their indices, and
+	 * applying it if it is legal. The cards of a player with hidden cards are trusted to be
+	 * held by that player. Listeners are told about the outcome in both cases, with null
+	 * indices for an illegal move.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cards the cards played, or null for a pass
+	 * @return true if the move was legal and has been applied; otherwise false
+	 */
+	public synchronized boolean applyCards(int playerIdx, CardList cards) {
+		if (!this.started || this.endOfGame() || playerIdx != this.currentPlayerIdx) {
+			fireIllegalMove(playerIdx, null);
+			return false;
+		}
+		if (cards == null) {
+			return pass(playerIdx, null);
+		}
+		CardGamePlayer player = this.playerList.get(playerIdx);
+		if (player.getNumOfHiddenCards() == 0
+				&& !player.getCardsInHand().getCardSet().containsAll(cards.getCardSet())) {
+			fireIllegalMove(playerIdx, null);
+			return false;
+		}
+		return play(playerIdx, null, cards);
+	}
+
+	/**
+	 * a method for applying a pass by the current player if it is legal.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx the indices given with the move, for the listeners
+	 * @return true if the pass was legal and has been applied; otherwise false
+	 */
+	private boolean pass(int playerIdx, int[] cardIdx) {
+		CardGamePlayer player = this.playerList.get(playerIdx);
+		Hand lastHand = this.handsOnTable.isEmpty() ? null : this.handsOnTable.get(this.handsOnTable.size() - 1);
+
+		// a player may pass unless the table is empty or the player played the last hand
+		if (lastHand == null || lastHand.getPlayer() == player) {
+			fireIllegalMove(playerIdx, cardIdx);
+			return false;
+		}
+		this.currentPlayerIdx = (this.currentPlayerIdx + 1) % this.playerList.size();
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).turnPassed(playerIdx);
+		}
+		return true;
+	}
+
+	/**
+	 * a method for applying the cards played by the current player if they make a legal hand.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx the indices given with the move, for the listeners
+	 * @param cards the cards played by the player
+	 * @return true if the hand was legal and has been applied; otherwise false
+	 */
+	private boolean play(int playerIdx, int[] cardIdx, CardList cards) {
+		CardGamePlayer player = this.playerList.get(playerIdx);
+		Hand lastHand = this.handsOnTable.isEmpty() ? null : this.handsOnTable.get(this.handsOnTable.size() - 1);
+
+		Hand hand = composeHand(player, cards);
+		boolean legal;
+		if (hand == null) {
+			legal = false;
+		} else if (lastHand == null) {
+			// the first hand of a game must contain the lowest card (the 3 of Diamonds), which
+			// only the server can check for a player with hidden cards
+			legal = player.getNumOfHiddenCards() > 0 || hand.contains(player.getCardsInHand().getCard(0));
+		} else if (lastHand.getPlayer() == player) {
+			legal = true;
+		} else {
+			legal = hand.size() == lastHand.size() && hand.beats(lastHand);
+		}
+		if (!legal) {
+			fireIllegalMove(playerIdx, cardIdx);
+			return false;
+		}
+
+		this.handsOnTable.add(hand);
+		player.removeCards(hand);
+		boolean ended = this.endOfGame();
+		if (!ended) {
+			this.currentPlayerIdx = (this.currentPlayerIdx + 1) % this.playerList.size();
+		}
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).handPlayed(playerIdx, hand);
+		}
+		if (ended) {
+			for (int i = 0; i < listeners.size(); i++) {
+				listeners.get(i).gameEnded(playerIdx);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * a method for telling the listeners about a rejected move.
+	 *
+	 * @param playerIdx an integer specifying the index of the player
+	 * @param cardIdx an integer array specifying the indices of the cards, or null for a pass
+	 */
+	private void fireIllegalMove(int playerIdx, int[] cardIdx) {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).illegalMove(playerIdx, cardIdx);
+		}
+	}
+
+	/**
+	 * a method for checking if the game ends, i.e. the cards have been dealt and a player has no cards left.
+	 *
+	 * @return a boolean value specifying whether the game ends or not
+	 */
+	@Override
+	public boolean endOfGame() {
+		if (!this.started) {
+			return false;
+		}
+		for (int i = 0; i < this.playerList.size(); i++) {
+			if (this.playerList.get(i).getNumOfCards() == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * a method for returning a valid hand from the specified list of cards of the player. 
+	 * Returns null if no valid hand can be composed from the specified list of cards
+	 * 
+	 * @param player a CardGamePlayer object specifying the player
+	 * @param cards a CardList object specifying the list of cards
+	 * @return a Hand object that can be composed from the cards (i.e. Single, Pair, Triple, etc.)
+	 */
+	public static Hand composeHand(CardGamePlayer player, CardList cards) {
+		//classifying the cards once, and only building the hand that matches
+		int code = HandClassifier.classify(cards);
+		if (code == HandClassifier.INVALID) {
+			return null;
+		}
+		return HandClassifier.getType(code).newHand(player, cards);
+	}
+}
@@ -1,7 +1,9 @@
 import java.awt.*;
 import javax.swing.*;
+import javax.swing.text.DefaultCaret;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -12,6 +14,7 @@ import java.util.ArrayList;
  */
 public class BigTwoGUI implements CardGameUI {
 	private final static int MAX_CARD_NUM = 13;
+	private final static int CARD_LIFT = 30;
 	
 	/**
 	 * a constructor for creating a BigTwoGUI. The parameter game 
@@ -21,31 +24,9 @@ public class BigTwoGUI implements CardGameUI {
 	 */
 	public BigTwoGUI(BigTwo game) {
 		this.game = game;
-		this.avatars = new Image[4];
-		// load all the card picture including the player icon
-		avatars[0] = new ImageIcon("src/p0.png").getImage();
-		avatars[1] = new ImageIcon("src/p1.png").getImage();
-		avatars[2] = new ImageIcon("src/p2.png").getImage();
-		avatars[3] = new ImageIcon("src/p3.png").getImage();
 		this.playerPanel = new PlayerPanel[4];
-		this.selected = new boolean[MAX_CARD_NUM];
-		this.cardImages = new Image[4][13];
-		for (int i = 0; i<4; i++) {
-			for (int j = 0; j<13; j++) {
-				if (i == 0) {
-					this.cardImages[i][j] = new ImageIcon("src/" + Integer.toString(j+1) + "d.gif").getImage();
-				}
-				if (i == 1) {
-					this.cardImages[i][j] = new ImageIcon("src/" + Integer.toString(j+1) + "c.gif").getImage();
-				}
-				if (i == 2) {
-					this.cardImages[i][j] = new ImageIcon("src/" + Integer.toString(j+1) + "h.gif").getImage();
-				}
-				if (i == 3) {
-					this.cardImages[i][j] = new ImageIcon("src/" + Integer.toString(j+1) + "s.gif").getImage();
-				}
-			}
-		}
+		// decode all the pictures of the cards including the player icons before the first paint
+		ImageCache.loadAll();
 	
 		frame = new JFrame("Big Two (" + game.getPlayerName() + ')');
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -53,10 +34,13 @@ public class BigTwoGUI implements CardGameUI {
 		msgArea = new JTextArea(30, 30);
 		msgArea.setLineWrap(true);
 		msgArea.setEditable(false);
+		// scrolls to the end of the messages appended by the network thread as well
+		((DefaultCaret) msgArea.getCaret()).setUpdatePolicy(DefaultCaret.ALWAYS_UPDATE);
 		
 		chatArea = new JTextArea(30,30);
 		chatArea.setLineWrap(true);
 		chatArea.setEditable(false);
+		((DefaultCaret) chatArea.getCaret()).setUpdatePolicy(DefaultCaret.ALWAYS_UPDATE);
 		
 		this.textField = new JTextField(10);
 		textField.addActionListener(new EnterListener());
@@ -73,6 +57,8 @@ public class BigTwoGUI implements CardGameUI {
 		passButton.addActionListener(passButtonListener);
 		playButton.addActionListener(playButtonListener);
 		
+		this.buildFrame();
+		
 		this.disable();
 			
 	}
@@ -102,11 +88,6 @@ public class BigTwoGUI implements CardGameUI {
 	 */
 	private BigTwo game;
 	
-	/**
-	 * a boolean array indicating which cards are being selected.
-	 */
-	private boolean[] selected;
-	
 	/**
 	 * an integer specifying the index of the active player.
 	 */
@@ -138,25 +119,19 @@ public class BigTwoGUI implements CardGameUI {
 	private JTextArea msgArea;
 	
 	/**
-	 * a 2D array storing the images for the faces of the cards.
-	 */
-	private Image[][] cardImages;
-	
-	/**
-	 * an image for the backs of the cards.
+	 * an array for storing the playerPanels.
 	 */
-	private Image cardBackImage;
+	private PlayerPanel[] playerPanel;
 	
 	/**
-	 * an array storing the images for the avatars.
+	 * a panel for showing the cards played on the table.
 	 */
-	private Image[] avatars;
+	private CardsOnTable cardsOnTable;
 	
 	/**
-	 * an array for storing the playerPanels.
+	 * a panel holding the cards of the local player, shown in the panel of the active player.
 	 */
-	private PlayerPanel[] playerPanel;
-	
+	private PlayerCardPanel handPanel;
 	
 	/**
 	 * a method for setting the index of the active player (i.e., the current player).
@@ -189,185 +164,58 @@ public class BigTwoGUI implements CardGameUI {
 	 * @return an integer array containing the indexes of the card/s that is/are being selected
 	 */
 	public int[] getSelected() {
-		
-		CardGamePlayer player = this.game.getPlayerList().get(game.getCurrentPlayerIdx());
-		
-		int[] cardIndex = null;
-		
-		int count = 0;
-		for (int i = 0; i<player.getNumOfCards(); i++) {
-			if (this.selected[i] == true) {
-				count++;
-			}
-		}
-		
-		cardIndex = new int[count];
-		
-		int index = 0;
-		for (int i = 0; i<this.selected.length; i++) {
-			if (this.selected[i] == true) {
-				cardIndex[index] = i;
-				index++;
-			}
-		}
-		return cardIndex;
-	}
-	
-	/**
-	 * a method to get the cardImages.
-	 * 
-	 * @return cardImages which is a 2d array of type Image that stores the images of the cards' front.
-	 */
-	public Image[][] getCardImages() {
-		return this.cardImages;
+		return this.handPanel.getSelected();
 	}
 	
 	/**
 	 * a method for resetting the list of selected cards.
 	 */
 	public void resetSelected() {
-		
-		for (int i = 0; i < this.selected.length; i++) {
-			this.selected[i] = false;
-		}
+		this.handPanel.resetCards();
 	}
 	
 	/**
-	 * a method for repainting the GUI.
+	 * a method for building the components of the frame. They are built once, and then updated in place 
+	 * by repaint() and the other update methods as the game goes on.
 	 */
-	@Override
-	public void repaint() {
-		//reset the selected array to false.
-		this.resetSelected();
-		
-		//a method to reset the frame.
-		frame.setContentPane( new JPanel( new BorderLayout() ) );
+	private void buildFrame() {
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
 		
 		bigTwoPanel = new BigTwoPanel();
 		bigTwoPanel.setLayout(new BorderLayout());
-		bigTwoPanel.setPreferredSize(new Dimension(frame.getWidth()*7/10, frame.getHeight()));
-		
-		JPanel buttonPanel = new JPanel();
-		
-		cardBackImage = new ImageIcon("src/b.gif").getImage();
 		
 		JPanel container = new JPanel();
 		container.setLayout(new GridLayout(5,1));
 		container.setOpaque(false);
 		
-		//creates panels for the non active players.
+		//creates a panel for every player, the cards of the local player are moved to its panel by updatePlayer().
+		handPanel = new PlayerCardPanel();
 		for (int i = 0; i<playerPanel.length; i++) {
-			JLabel playerLabel;
-			if (i==game.getCurrentPlayerIdx() && game.getClient().getIsStarted()) {
-				playerLabel = new JLabel("   " + game.getPlayerList().get(i).getName());
-				playerLabel.setForeground(Color.YELLOW);
-			}
-			else if (this.game.getPlayerList().get(i).getName() != null) {
-				playerLabel = new JLabel("   " + this.game.getPlayerList().get(i).getName());
-				playerLabel.setForeground(new Color(0, 50, 50));
-			}
-			else {
-				playerLabel = new JLabel("   ");
-				playerLabel.setForeground(new Color(0, 50, 50));
-			}
-			playerLabel.setFont(new Font("Comic Sans", Font.BOLD, 16));
-			if ( i!=this.activePlayer ) {
-				playerPanel[i] = new PlayerPanel(avatars[i], game.getPlayerList().get(i), this);
-				playerPanel[i].setLayout(new FlowLayout(FlowLayout.LEFT));
-				playerPanel[i].add(playerLabel);
-				playerPanel[i].setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*4/21));
-				playerPanel[i].setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
-			}
+			playerPanel[i] = new PlayerPanel(i);
+			playerPanel[i].setPreferredSize(new Dimension((int)screenSize.getWidth(), (int)screenSize.getHeight()*4/21));
+			playerPanel[i].setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
+			container.add(playerPanel[i]);
 		}
 		
 		//creates a panel holding the cards on table
-		CardsOnTable cardsOnTablePanel = new CardsOnTable(this.game.getHandsOnTable());
-		cardsOnTablePanel.setBackground(new Color(10, 150, 0, 0));
-		cardsOnTablePanel.setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*4/21));
-		cardsOnTablePanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
+		cardsOnTable = new CardsOnTable();
+		cardsOnTable.setPreferredSize(new Dimension((int)screenSize.getWidth(), (int)screenSize.getHeight()*4/21));
+		cardsOnTable.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
+		container.add(cardsOnTable);
 		
 		//set the layout for the button panel, and add passButton along with playButton to the panel.
+		JPanel buttonPanel = new JPanel();
 		buttonPanel.setLayout(new GridLayout());
-		buttonPanel.setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*1/24));
-		
+		buttonPanel.setPreferredSize(new Dimension((int)screenSize.getWidth(), (int)screenSize.getHeight()*1/24));
 		buttonPanel.add(playButton);
 		buttonPanel.add(passButton);
 		
-		//an if else logic to implement the active playerPanel.
-		
-		if ( game.endOfGame() ) {
-			JLabel playerLabel = new JLabel("    " + "You    ");
-			playerLabel.setForeground(new Color(20, 180, 180));
-			playerLabel.setFont(new Font("Comic Sans", Font.BOLD, 16));
-			playerPanel[activePlayer] = new PlayerPanel(avatars[activePlayer], game.getPlayerList().get(activePlayer), this);
-			playerPanel[activePlayer].setLayout(new FlowLayout(FlowLayout.LEFT));
-			playerPanel[activePlayer].add(playerLabel);
-			playerPanel[activePlayer].setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*4/21));
-			playerPanel[activePlayer].setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
-		}
-		else {
-			JPanel tempContainer = new JPanel();
-			tempContainer.setLayout(new BoxLayout(tempContainer, BoxLayout.Y_AXIS));
-			
-			playerPanel[activePlayer] = new PlayerPanel(avatars[activePlayer], game.getPlayerList().get(activePlayer), this);
-			playerPanel[activePlayer].setLayout(new BoxLayout(playerPanel[activePlayer], BoxLayout.X_AXIS));
-			playerPanel[activePlayer].setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*4/21));
-			playerPanel[activePlayer].setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.black));
-			JLabel playerLabel = new JLabel("    " + "You    ");
-			
-			if (activePlayer == game.getCurrentPlayerIdx() && (game.getClient()).getIsStarted()) {
-				playerLabel.setForeground(Color.YELLOW);
-				playerLabel.setFont(new Font("Comic Sans", Font.BOLD, 16));
-			} else {
-				playerLabel.setForeground(new Color(20, 180, 180));
-				playerLabel.setFont(new Font("Comic Sans", Font.BOLD, 16));
-			}
-			
-			//creates a panel for the current active player.
-			PlayerCardPanel activePanel = new PlayerCardPanel(this, this.playerPanel[this.activePlayer]);
-			JPanel fillerPanel = new JPanel();
-			fillerPanel.setOpaque(false);
-			
-			JPanel fillerPanel2 = new JPanel();
-			fillerPanel2.setOpaque(false);
-			fillerPanel2.setLayout(new FlowLayout(FlowLayout.LEFT));
-			fillerPanel2.setPreferredSize(new Dimension(100,100));
-			fillerPanel2.setMaximumSize(new Dimension(100, 100));
-			fillerPanel2.setMinimumSize(new Dimension(100, 100));
-			
-			JPanel containerTwo = new JPanel();
-			containerTwo.setOpaque(false);
-			containerTwo.setLayout(new BoxLayout(containerTwo, BoxLayout.Y_AXIS));
-			containerTwo.add(activePanel);
-	
-			tempContainer.add(playerLabel);
-			tempContainer.add(fillerPanel);
-			tempContainer.setOpaque(false);
-			containerTwo.setPreferredSize(new Dimension((int)Toolkit.getDefaultToolkit().getScreenSize().getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()));
-			playerPanel[activePlayer].add(tempContainer);
-			playerPanel[activePlayer].add(fillerPanel2);
-			playerPanel[activePlayer].add(containerTwo);
-		}
-		
-		//add the player panels to the container, which will be inserted into the bigTwoPanel.
-		container.add(playerPanel[0], BorderLayout.CENTER);
-		container.add(playerPanel[1], BorderLayout.CENTER);
-		container.add(playerPanel[2], BorderLayout.CENTER);
-		container.add(playerPanel[3], BorderLayout.CENTER);
-		
-		container.add(cardsOnTablePanel, BorderLayout.CENTER);
-		
 		//add the contents of bigTwoPanel.
 		bigTwoPanel.add(container, BorderLayout.CENTER);
 		bigTwoPanel.add(buttonPanel, BorderLayout.SOUTH);
-
-		frame.add(bigTwoPanel, BorderLayout.CENTER);
 		
-		//set the message area to be auto scrolled and add it to the frame.
-		msgArea.setCaretPosition(msgArea.getDocument().getLength());
 		JScrollPane sp = new JScrollPane(msgArea);
 		
-		chatArea.setCaretPosition(chatArea.getDocument().getLength());
 		chatArea.setForeground(Color.BLUE);
 		JScrollPane cht = new JScrollPane(chatArea);
 		
@@ -378,7 +226,7 @@ public class BigTwoGUI implements CardGameUI {
 		msgAndChatArea.setLayout(new GridLayout(2,1));
 		
 		JPanel textFieldHolder = new JPanel();
-		textFieldHolder.setPreferredSize(new Dimension((int)msgChatHolder.getWidth(), (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()*1/24));
+		textFieldHolder.setPreferredSize(new Dimension(0, (int)screenSize.getHeight()*1/24));
 		textFieldHolder.setLayout(new BorderLayout());
 		textFieldHolder.add(new JLabel("Message:"), BorderLayout.WEST);
 		textFieldHolder.add(textField);
@@ -390,32 +238,73 @@ public class BigTwoGUI implements CardGameUI {
 		msgChatHolder.add(msgAndChatArea, BorderLayout.CENTER);
 		msgChatHolder.add(textFieldHolder, BorderLayout.SOUTH);
 		
-		//setting the buttons to not be able to be clicked when the game is over, and print players' names to the JTextArea if the game is not over.
-		if (!game.endOfGame()) {
-			if (this.activePlayer != game.getCurrentPlayerIdx()) {
-				this.disable();
-			} else {
-				BigTwoClient tempGame = game.getClient();
-				if (tempGame.getIsStarted() == true) {
-					this.enable();
-				}
-				else {
-					this.disable();
-				}
-			}
-
+		frame.getContentPane().add(bigTwoPanel, BorderLayout.CENTER);
+		frame.getContentPane().add(msgChatHolder, BorderLayout.EAST);
+		frame.setSize(1500, 900);
+	}
+	
+	/**
+	 * a method for updating the panel of a player after his/her cards have changed.
+	 * 
+	 * @param playerIdx an integer specifying the index of the player
+	 */
+	public void updatePlayer(int playerIdx) {
+		this.playerPanel[playerIdx].update();
+	}
+	
+	/**
+	 * a method for updating the panel showing the cards played on the table.
+	 */
+	public void updateTable() {
+		this.cardsOnTable.update();
+	}
+	
+	/**
+	 * a method for updating the parts of the GUI that depend on whose turn it is, i.e. the highlighted 
+	 * name and the Play and Pass buttons.
+	 */
+	public void updateTurn() {
+		for (int i = 0; i<playerPanel.length; i++) {
+			playerPanel[i].updateLabel();
+		}
+		
+		//setting the buttons to not be able to be clicked unless it is the turn of the local player.
+		if (!game.endOfGame() && this.activePlayer == game.getCurrentPlayerIdx() && game.getClient().getIsStarted()) {
+			this.enable();
 		}
 		else {
+			this.disable();
+		}
+	}
+	
+	/**
+	 * a method for repainting the GUI. The components are only updated, not rebuilt.
+	 */
+	@Override
+	public void repaint() {
+		//reset the selected array to false.
+		this.resetSelected();
+		
+		for (int i = 0; i<playerPanel.length; i++) {
+			playerPanel[i].update();
+		}
+		this.updateTable();
+		this.updateTurn();
+		
+		if (!frame.isVisible()) {
+			frame.setVisible(true);
+		}
+		
+		//print players' cards to the JTextArea when the game is over.
+		if (game.endOfGame()) {
 			(game.getClient()).setIsConnected(false);
 			String messageDialog = "The game has ended! \n";
-			int decoy = 0;
 			for (int i = 0; i<game.getNumOfPlayers(); i++) {
 				if (i == this.activePlayer) {
 					messageDialog += ("You have " + game.getPlayerList().get(i).getNumOfCards() + " cards left. \n");
 				} else {
 					messageDialog += (game.getPlayerList().get(i).getName() + " has " + game.getPlayerList().get(i).getNumOfCards() + " cards left. \n");
 				}
-				decoy += game.getPlayerList().get(i).getNumOfCards();
 			}
 		
 			if (this.activePlayer == this.game.getCurrentPlayerIdx()){
@@ -427,6 +316,7 @@ public class BigTwoGUI implements CardGameUI {
 			(game.getClient()).sendMessage(new CardGameMessage(4, -1, null));
 			this.printMsg("\n");
 			game.getHandsOnTable().clear();
+			cardsOnTable.repaint();
 			for (int i = 0; i<game.getPlayerList().size(); i++) {
 				if (i == game.getNumOfPlayers()) {
 					this.printMsg(game.getPlayerList().get(i).getName() + " wins the game." + '\n');
@@ -436,13 +326,6 @@ public class BigTwoGUI implements CardGameUI {
 			}
 			
 		}
-		
-		frame.getContentPane().add(msgChatHolder, BorderLayout.EAST);
-		
-		frame.setSize(1500, 900);
-		frame.setVisible(true);
-		
-		
 	}
 	
 	/**
@@ -592,9 +475,10 @@ public class BigTwoGUI implements CardGameUI {
 		 */
 		public void paintComponent(Graphics g) {
 			super.paintComponent(g);
-			Image table = new ImageIcon("src/bg.jpg").getImage();
+			// the background is scaled again only when the panel is resized
+			Image table = ImageCache.get(ImageCache.BACKGROUND_NAME, this.getWidth(), this.getHeight());
 
-			g.drawImage(table, 0, 0, this.getWidth(), this.getHeight() , this);
+			g.drawImage(table, 0, 0, this);
 		}
 	}
 	
@@ -651,32 +535,86 @@ public class BigTwoGUI implements CardGameUI {
 	 *
 	 */
 	class PlayerPanel extends JPanel {
-		private Image[][] frontCards;
-		private Image character;
-		private CardGamePlayer player;
-		private Image backCards;
-		private CardGamePlayer currentPlayer;
+		private int playerIdx;
+		private JPanel labelHolder;
+		private JLabel playerLabel;
 		
 		/**
-		 * A constructor to fill the instance variables of the inner class.
+		 * A constructor to fill the instance variables of the inner class and create the label of the player.
 		 * 
-		 * @param character to get the characters of each player.
-		 * @param player to get the player of each panel.
-		 * @param gui to access instance variables stored in the outer class.
+		 * @param playerIdx the index of the player of the panel.
 		 */
-		PlayerPanel (Image character, CardGamePlayer player, BigTwoGUI gui) {
-			this.character = character;
-			this.player = player;
-			this.backCards = gui.cardBackImage;
-			this.currentPlayer = gui.game.getPlayerList().get(game.getCurrentPlayerIdx());
-			this.frontCards = gui.getCardImages();
+		PlayerPanel (int playerIdx) {
+			this.playerIdx = playerIdx;
+			this.setLayout(new BorderLayout());
+			// the panel is transparent so that it can be repainted on its own over the background of the table
+			this.setOpaque(false);
+			
+			this.playerLabel = new JLabel("   ");
+			this.playerLabel.setFont(new Font("Comic Sans", Font.BOLD, 16));
+			this.labelHolder = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			this.labelHolder.setOpaque(false);
+			this.labelHolder.add(playerLabel);
+			this.add(labelHolder, BorderLayout.WEST);
 		}
 		
 		/**
 		 * @return player with a type of CardGamePlayer.
 		 */
 		public CardGamePlayer getPlayer() {
-			return this.player;
+			return game.getPlayerList().get(playerIdx);
+		}
+		
+		/**
+		 * A method to update the panel after the cards of the player have changed. The cards of the local player 
+		 * are shown by the handPanel, which is moved into this panel if this is the panel of the active player.
+		 */
+		void update() {
+			boolean showHand = playerIdx == activePlayer && !game.endOfGame();
+			if (showHand) {
+				if (handPanel.getParent() != this) {
+					// leaves the width of the other panels' label for the label of the local player
+					labelHolder.setPreferredSize(new Dimension(170, 0));
+					this.add(handPanel, BorderLayout.CENTER);
+					this.revalidate();
+				}
+				handPanel.update(playerIdx);
+			}
+			else if (handPanel.getParent() == this) {
+				labelHolder.setPreferredSize(null);
+				this.remove(handPanel);
+				this.revalidate();
+			}
+			this.updateLabel();
+			this.repaint();
+		}
+		
+		/**
+		 * A method to update the name of the player, which is highlighted during his/her turn.
+		 */
+		void updateLabel() {
+			CardGamePlayer player = this.getPlayer();
+			boolean isTurn = playerIdx == game.getCurrentPlayerIdx() && game.getClient().getIsStarted();
+			if (playerIdx == activePlayer) {
+				playerLabel.setText("    " + "You    ");
+				if (isTurn && !game.endOfGame()) {
+					playerLabel.setForeground(Color.YELLOW);
+				} else {
+					playerLabel.setForeground(new Color(20, 180, 180));
+				}
+			}
+			else if (isTurn) {
+				playerLabel.setText("   " + player.getName());
+				playerLabel.setForeground(Color.YELLOW);
+			}
+			else if (player.getName() != null) {
+				playerLabel.setText("   " + player.getName());
+				playerLabel.setForeground(new Color(0, 50, 50));
+			}
+			else {
+				playerLabel.setText("   ");
+				playerLabel.setForeground(new Color(0, 50, 50));
+			}
 		}
 		
 		/**
@@ -684,21 +622,29 @@ public class BigTwoGUI implements CardGameUI {
 		 * when the game is over.
 		 */
 		public void paintComponent(Graphics g) {
+			CardGamePlayer player = this.getPlayer();
 			if (player.getName() == null || player.getName().isEmpty()) {
 				
 			}
 			else {
-				g.drawImage(character, 5, 20, 140, 140, this);
+				g.drawImage(ImageCache.get(ImageCache.getAvatarName(playerIdx), 140, 140), 5, 20, this);
 				
 				if (game.endOfGame()) {
+					// the cards of the opponents dealt by the server stay hidden
+					CardList cards = player.getCardsInHand();
 					for (int i = 0; i<player.getNumOfCards(); i++) {
-						g.drawImage(frontCards[player.getCardsInHand().getCard(i).getSuit()][player.getCardsInHand().getCard(i).getRank()], 180+i*40, 50, 73, 97, this);
+						if (i < cards.size()) {
+							g.drawImage(ImageCache.getCard(cards.getCard(i)), 180+i*40, 50, this);
+						}
+						else {
+							g.drawImage(ImageCache.getCardBack(), 180+i*40, 50, this);
+						}
 					}
 				}
 				else {
-					if (game.getPlayerList().get((activePlayer))!=this.player)
+					if (playerIdx != activePlayer)
 					for (int i = 0; i<player.getNumOfCards(); i++) {
-						g.drawImage(backCards, 180+i*40, 50, 73, 97, this);
+						g.drawImage(ImageCache.getCardBack(), 180+i*40, 50, this);
 					}
 				}
 			}
@@ -707,158 +653,213 @@ public class BigTwoGUI implements CardGameUI {
 	}
 	
 	/**
-	 * An inner class that extends the JLayeredPane class.
-	 * it will hold the card button inside each player's panel.
+	 * An inner class that extends the JComponent class.
+	 * It paints the cards in hand of the local player inside his/her panel, and lets the player select them
+	 * with the mouse or the keyboard. The selected cards are kept as a bit mask of their indices.
 	 * 
 	 * @author DaveMatthew
 	 *
 	 */
-	class PlayerCardPanel extends JLayeredPane {
-		private CardGamePlayer player;
+	class PlayerCardPanel extends JComponent implements CardAnimator.Listener, MouseListener, MouseMotionListener, KeyListener, FocusListener {
+		private int playerIdx = -1;
+		private long cardBits = 0L;
+		private Card[] cards = new Card[0];
+		private long selected = 0L;
+		// the card under the mouse, or -1
+		private int hovered = -1;
+		// the card moved to with the keyboard
+		private int focused = 0;
+		private CardAnimator animator;
 		
 		/**
-		 * A constructor to create the cardButtons which are obtained from the cards in hand of the players, add them to the panel of the active player.
-		 * 
-		 * @param table to access the cardImages stored in the instance variable of outer class.
-		 * @param playerPanel to access the instance variables of the PlayerPanel so that the constructor can identify whose card to be made cardButtons.
+		 * A constructor to create an empty panel, the cards are set by update().
 		 */
-		PlayerCardPanel(BigTwoGUI table, PlayerPanel playerPanel) {
+		PlayerCardPanel() {
 			this.setPreferredSize(new Dimension( (int) Toolkit.getDefaultToolkit().getScreenSize().getWidth(), 500));
-			this.player = playerPanel.getPlayer();
-			for (int i = 0; i<this.player.getNumOfCards(); i++) {
-				Icon cardImage = new ImageIcon(table.cardImages[this.player.getCardsInHand().getCard(i).getSuit()][this.player.getCardsInHand().getCard(i).getRank()]);
-				CardButton cardImageTemp = new CardButton(cardImage, i);
-				cardImageTemp.setIcon(cardImage);
-				cardImageTemp.setBounds(10 + 40*i, 50, 73, 97);
-				
-				this.add(cardImageTemp, new Integer(i));
-			}
+			this.setFocusable(true);
+			this.animator = new CardAnimator(MAX_CARD_NUM, this);
+			this.addMouseListener(this);
+			this.addMouseMotionListener(this);
+			this.addKeyListener(this);
+			this.addFocusListener(this);
 		}
-	}
-	
-	/**
-	 * An inner class that extends the JPanel class.
-	 * Overrides the painComponent() method to paint the handsOnTable to the south component of the BigTwoGUI panel.
-	 * 
-	 * @author DaveMatthew
-	 *
-	 */
-	class CardsOnTable extends JPanel {
-		private ArrayList<Hand> handOnTable;
 		
 		/**
-		 * A constructor for creating the CardsOnTable panel on the south component of the bigTwoPanel. Handling handsOnTable from the game instance variable as the argument. The constructor also 
-		 * creates a label for articulating the type of the last hand played on table and the owner of the hand.
+		 * A method to take the cards in hand of the player. It may be called from any thread; the cards are read 
+		 * at once, and shown on the event dispatch thread. The selection is only reset if the cards or their 
+		 * order have changed since the last update.
 		 * 
-		 * @param lastHandOnTable handsOnTable which is acquired from the game instance variable.
+		 * @param playerIdx the index of the player whose cards are shown.
 		 */
-		CardsOnTable(ArrayList<Hand> lastHandOnTable){
-			JLabel label;
-			this.setLayout(new FlowLayout(FlowLayout.LEFT));
-			if (lastHandOnTable!=null) {
-				if (lastHandOnTable.size()!=0) {
-					String string;
-					if (lastHandOnTable.get(lastHandOnTable.size()-1).getPlayer() == game.getPlayerList().get(activePlayer)) {
-						string = "Played by you";
-						label = new JLabel(string);
-						label.setForeground(Color.BLUE);
+		void update(final int playerIdx) {
+			CardList hand = game.getPlayerList().get(playerIdx).getCardsInHand();
+			final long cardBits = hand.getCardSet().toLong();
+			final Card[] cards = new Card[Math.min(hand.size(), MAX_CARD_NUM)];
+			for (int i = 0; i<cards.length; i++) {
+				cards[i] = hand.getCard(i);
+			}
+			if (!SwingUtilities.isEventDispatchThread()) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						setCards(playerIdx, cardBits, cards);
 					}
-					else {
-						string = "  Played by " + lastHandOnTable.get(lastHandOnTable.size()-1).getPlayer().getName() + " (" + lastHandOnTable.get(lastHandOnTable.size()-1).getType() + ")";
-						label = new JLabel(string);
-						label.setForeground(new Color(20, 20, 80));
-					}		
-				}
-				else if (!game.getStarted()) {
-					String string = "  Waiting for player...";
-					label = new JLabel(string);
-				}
-				else {
-					String string = "  Start of game";
-					label = new JLabel(string);
-				}
+				});
+				return;
 			}
-			else {
-				String string = "  Start of game";
-				label = new JLabel(string);
+			this.setCards(playerIdx, cardBits, cards);
+		}
+		
+		/**
+		 * A method to show the specified cards, called on the event dispatch thread.
+		 * 
+		 * @param playerIdx the index of the player whose cards are shown.
+		 * @param cardBits the bits (see CardSet) of the cards.
+		 * @param cards the cards, in the order they are shown.
+		 */
+		private void setCards(int playerIdx, long cardBits, Card[] cards) {
+			if (playerIdx == this.playerIdx && cardBits == this.cardBits && Arrays.equals(cards, this.cards)) {
+				return;
 			}
-			label.setFont(new Font("Helvetica", Font.BOLD, 18));
-			this.add(label);
-			this.handOnTable = lastHandOnTable;
-
+			this.playerIdx = playerIdx;
+			this.cardBits = cardBits;
+			this.cards = cards;
+			this.resetCards();
+			this.hovered = -1;
+			this.focused = Math.min(this.focused, Math.max(0, cards.length-1));
+			this.repaint();
 		}
 		
 		/**
-		 * A method to automatically paint the panel whilst it is being constructed.
+		 * A method for getting the indices of the selected cards.
+		 * 
+		 * @return an integer array holding the indices of the selected cards in increasing order.
 		 */
-		public void paintComponent(Graphics g) {
-			if (handOnTable.size()>0) {
-				// print the back of the cards to represent the pile of the previous handOnTable if there is more than 1 hand played.
-				if (handOnTable.size() > 1) {
-					g.drawImage(cardBackImage, 40, 50, 73, 97, this);
-				}
-				for (int i = 0; i < handOnTable.get(handOnTable.size()-1).size(); i++) {
-					g.drawImage(cardImages[handOnTable.get(handOnTable.size()-1).getCard(i).getSuit()][handOnTable.get(handOnTable.size()-1).getCard(i).getRank()], 180+i*40, 50, 73, 97, this);
+		int[] getSelected() {
+			long mask = this.selected;
+			int[] cardIdx = new int[Long.bitCount(mask)];
+			for (int i = 0; i<cardIdx.length; i++) {
+				cardIdx[i] = Long.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+			}
+			return cardIdx;
+		}
+		
+		/**
+		 * A method to unselect all the cards and put them down. It may be called from any thread; the selection 
+		 * is only changed on the event dispatch thread, together with the cards.
+		 */
+		void resetCards() {
+			if (!SwingUtilities.isEventDispatchThread()) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						resetCards();
+					}
+				});
+				return;
+			}
+			this.selected = 0L;
+			this.animator.reset();
+		}
+		
+		/**
+		 * A method to select or unselect a card, which is raised or put down.
+		 * 
+		 * @param position the index of the card.
+		 */
+		void toggleCard(int position) {
+			this.selected ^= 1L << position;
+			boolean raised = (this.selected & (1L << position)) != 0L;
+			this.animator.moveTo(position, raised ? CARD_LIFT : 0);
+		}
+		
+		/**
+		 * A method for getting the area covered by a card.
+		 * 
+		 * @param position the index of the card.
+		 * @param lift the number of pixels the card is raised by.
+		 * @return the area of the card, including its border.
+		 */
+		private Rectangle getCardBounds(int position, int lift) {
+			return new Rectangle(10 + 40*position, 50 - lift, ImageCache.CARD_WIDTH, ImageCache.CARD_HEIGHT);
+		}
+		
+		/**
+		 * A method for finding the card at the specified point. As every card covers the left of the previous one, 
+		 * the cards are tried from the last one.
+		 * 
+		 * @param p the point.
+		 * @return the index of the card, or -1 if there is no card at this point.
+		 */
+		private int cardAt(Point p) {
+			for (int i = this.cards.length-1; i>=0; i--) {
+				if (this.getCardBounds(i, this.animator.getLift(i)).contains(p)) {
+					return i;
 				}
 			}
+			return -1;
 		}
-	}
-	
-	/**
-	 * An inner class that  extends the JButton class and implements the MouseListener interface.
-	 * It will make the card buttons that are going to be inserted in the PlayerCardPanel component.
-	 * 
-	 * @author DaveMatthew
-	 *
-	 */
-	class CardButton extends JButton implements MouseListener {
-		private Icon cardFace;
-		private int position;
-		private boolean cardClicked;
 		
 		/**
-		 * An inner class constructor for obtaining the instance variables needed to make the moving animation of the card when clicked, and
-		 * implementing the actionPerformed method when clicked.
-		 *
-		 * @param cardImage
-		 * @param position
+		 * A method to repaint the area of a card.
+		 * 
+		 * @param position the index of the card, or -1.
+		 */
+		private void repaintCard(int position) {
+			if (position >= 0) {
+				Rectangle r = this.getCardBounds(position, this.animator.getLift(position));
+				this.repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+			}
+		}
+		
+		/**
+		 * A method called by the animator when a card is moving. Only the area the card leaves and the area 
+		 * it enters are repainted.
 		 */
-		CardButton(Icon cardImage, int position) {
-			this.position = position;
-			this.cardFace = cardImage;
-			addMouseListener(this);
-			cardClicked = false;
+		@Override
+		public void cardMoved(int cardIdx, int oldLift, int newLift) {
+			Rectangle r = this.getCardBounds(cardIdx, oldLift).union(this.getCardBounds(cardIdx, newLift));
+			this.repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
 		}
 		
 		/**
-		 *	implements the logic if one of the card in the PlayerCardPanel is clicked. Changing the location of the card upwards if clicked by the user
-		 *  and set the selected in the specified position of the class among the cards in hand of the player to be true, and vice-versa.
+		 * A method to paint the cards, with a border around the card under the mouse and around the card moved 
+		 * to with the keyboard.
 		 */
 		@Override
-		public void mouseClicked(MouseEvent e) {
-			
-			if (cardClicked == true) {
-				cardClicked = false;
-				this.setBorder(null);
-				for (int i = 1; i<241; i++) {
-					this.setBounds(10+position*40, 20+i/8, cardFace.getIconWidth(), cardFace.getIconHeight());
-					this.repaint();
-					frame.repaint();
-				}
-				selected[position] = false;
+		public void paintComponent(Graphics g) {
+			Card[] cards = this.cards;
+			for (int i = 0; i<cards.length; i++) {
+				Rectangle r = this.getCardBounds(i, this.animator.getLift(i));
+				g.drawImage(ImageCache.getCard(cards[i]), r.x, r.y, this);
 			}
-			else {
-				cardClicked = true;
-				this.setBorder(null);
-				for (int i = 1; i<241; i++) {
-					this.setBounds(10+position*40, 50-i/8, cardFace.getIconWidth(), cardFace.getIconHeight());
-					this.repaint();
-					frame.repaint();
-				}
-				selected[position] = true;
+			if (this.hovered >= 0 && this.hovered < cards.length) {
+				Rectangle r = this.getCardBounds(this.hovered, this.animator.getLift(this.hovered));
+				g.setColor(Color.RED);
+				g.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+			}
+			if (this.isFocusOwner() && this.focused < cards.length) {
+				Rectangle r = this.getCardBounds(this.focused, this.animator.getLift(this.focused));
+				g.setColor(Color.YELLOW);
+				g.drawRect(r.x - 1, r.y - 1, r.width + 1, r.height + 1);
 			}
 		}
-
+		
+		/**
+		 *	selects or unselects the card clicked by the player.
+		 */
+		@Override
+		public void mouseClicked(MouseEvent e) {
+			int position = this.cardAt(e.getPoint());
+			if (position >= 0) {
+				this.repaintCard(this.focused);
+				this.focused = position;
+				this.toggleCard(position);
+			}
+			this.requestFocusInWindow();
+		}
+		
 		/**
 		 *
 		 */
@@ -867,7 +868,7 @@ public class BigTwoGUI implements CardGameUI {
 			
 			
 		}
-
+		
 		/**
 		 *
 		 */
@@ -876,26 +877,198 @@ public class BigTwoGUI implements CardGameUI {
 			
 			
 		}
-
+		
 		/**
-		 * gives a border when the player hovers over the card.
+		 *
 		 */
 		@Override
 		public void mouseEntered(MouseEvent e) {
-			this.setBorder(BorderFactory.createLineBorder(Color.RED));
 			
 			
 		}
-
+		
 		/**
-		 * removes the border of the card when the player removes the cursor from the card.
+		 * removes the border of the card when the player removes the cursor from the cards.
 		 */
 		@Override
 		public void mouseExited(MouseEvent e) {
+			this.repaintCard(this.hovered);
+			this.hovered = -1;
+		}
+		
+		/**
+		 *
+		 */
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			
+			
+		}
+		
+		/**
+		 * gives a border to the card the player hovers over.
+		 */
+		@Override
+		public void mouseMoved(MouseEvent e) {
+			int position = this.cardAt(e.getPoint());
+			if (position != this.hovered) {
+				this.repaintCard(this.hovered);
+				this.hovered = position;
+				this.repaintCard(this.hovered);
+			}
+		}
+		
+		/**
+		 * moves between the cards with the left and right keys, selects or unselects the card with the space key
+		 * (or the up and down keys), and plays the selected cards with the enter key.
+		 */
+		@Override
+		public void keyPressed(KeyEvent e) {
+			if (this.cards.length == 0) {
+				return;
+			}
+			int position = this.focused;
+			boolean raised = (this.selected & (1L << position)) != 0L;
+			switch (e.getKeyCode()) {
+			case KeyEvent.VK_LEFT:
+				position = Math.max(0, position - 1);
+				break;
+			case KeyEvent.VK_RIGHT:
+				position = Math.min(this.cards.length - 1, position + 1);
+				break;
+			case KeyEvent.VK_SPACE:
+				this.toggleCard(position);
+				break;
+			case KeyEvent.VK_UP:
+				if (!raised) {
+					this.toggleCard(position);
+				}
+				break;
+			case KeyEvent.VK_DOWN:
+				if (raised) {
+					this.toggleCard(position);
+				}
+				break;
+			case KeyEvent.VK_ENTER:
+				playButton.doClick();
+				break;
+			default:
+				return;
+			}
+			if (position != this.focused) {
+				this.repaintCard(this.focused);
+				this.focused = position;
+				this.repaintCard(this.focused);
+			}
+			e.consume();
+		}
+		
+		/**
+		 *
+		 */
+		@Override
+		public void keyReleased(KeyEvent e) {
+			
 			
-			this.setBorder(null);
 		}
 		
+		/**
+		 *
+		 */
+		@Override
+		public void keyTyped(KeyEvent e) {
+			
+			
+		}
+		
+		/**
+		 * shows the border of the card moved to with the keyboard.
+		 */
+		@Override
+		public void focusGained(FocusEvent e) {
+			this.repaintCard(this.focused);
+		}
+		
+		/**
+		 * hides the border of the card moved to with the keyboard.
+		 */
+		@Override
+		public void focusLost(FocusEvent e) {
+			this.repaintCard(this.focused);
+		}
+	}
+	
+	/**
+	 * An inner class that extends the JPanel class.
+	 * Overrides the painComponent() method to paint the handsOnTable to the south component of the BigTwoGUI panel.
+	 * 
+	 * @author DaveMatthew
+	 *
+	 */
+	class CardsOnTable extends JPanel {
+		private JLabel label;
+		
+		/**
+		 * A constructor for creating the CardsOnTable panel on the south component of the bigTwoPanel. The constructor also 
+		 * creates a label for articulating the type of the last hand played on table and the owner of the hand.
+		 */
+		CardsOnTable(){
+			this.setLayout(new FlowLayout(FlowLayout.LEFT));
+			// the panel is transparent so that it can be repainted on its own over the background of the table
+			this.setOpaque(false);
+			this.label = new JLabel("  Start of game");
+			this.label.setFont(new Font("Helvetica", Font.BOLD, 18));
+			this.add(label);
+		}
+		
+		/**
+		 * A method to update the label and the cards after a hand has been played.
+		 */
+		void update() {
+			ArrayList<Hand> lastHandOnTable = game.getHandsOnTable();
+			if (lastHandOnTable!=null) {
+				if (lastHandOnTable.size()!=0) {
+					if (activePlayer >= 0 && lastHandOnTable.get(lastHandOnTable.size()-1).getPlayer() == game.getPlayerList().get(activePlayer)) {
+						label.setText("Played by you");
+						label.setForeground(Color.BLUE);
+					}
+					else {
+						label.setText("  Played by " + lastHandOnTable.get(lastHandOnTable.size()-1).getPlayer().getName() + " (" + lastHandOnTable.get(lastHandOnTable.size()-1).getType() + ")");
+						label.setForeground(new Color(20, 20, 80));
+					}		
+				}
+				else if (!game.getStarted()) {
+					label.setText("  Waiting for player...");
+					label.setForeground(Color.BLACK);
+				}
+				else {
+					label.setText("  Start of game");
+					label.setForeground(Color.BLACK);
+				}
+			}
+			else {
+				label.setText("  Start of game");
+				label.setForeground(Color.BLACK);
+			}
+			this.repaint();
+		}
+		
+		/**
+		 * A method to paint the last hand on the table.
+		 */
+		public void paintComponent(Graphics g) {
+			ArrayList<Hand> handOnTable = game.getHandsOnTable();
+			if (handOnTable.size()>0) {
+				// print the back of the cards to represent the pile of the previous handOnTable if there is more than 1 hand played.
+				if (handOnTable.size() > 1) {
+					g.drawImage(ImageCache.getCardBack(), 40, 50, this);
+				}
+				Hand lastHand = handOnTable.get(handOnTable.size()-1);
+				for (int i = 0; i < lastHand.size(); i++) {
+					g.drawImage(ImageCache.getCard(lastHand.getCard(i)), 180+i*40, 50, this);
+				}
+			}
+		}
 	}
 	
 	class EnterListener implements ActionListener {
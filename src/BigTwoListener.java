@@ -0,0 +1,46 @@
+/**
+ * An interface for receiving the events of a BigTwoEngine. The methods are called on the thread that
+ * changed the state of the engine, after the state has been updated.
+ *
+ * @author DaveMatthew
+ *
+ */
+public interface BigTwoListener {
+	/**
+	 * Called when the cards have been dealt and a new game starts.
+	 *
+	 * @param currentPlayerIdx the index of the player holding the 3 of Diamonds, who moves first
+	 */
+	public void gameStarted(int currentPlayerIdx);
+
+	/**
+	 * Called when a player has played a hand. Unless the hand ended the game, the turn has already
+	 * moved on to the next player.
+	 *
+	 * @param playerIdx the index of the player who played the hand
+	 * @param hand      the hand played, which is now the last hand on the table
+	 */
+	public void handPlayed(int playerIdx, Hand hand);
+
+	/**
+	 * Called when a player has passed. The turn has already moved on to the next player.
+	 *
+	 * @param playerIdx the index of the player who passed
+	 */
+	public void turnPassed(int playerIdx);
+
+	/**
+	 * Called when a move has been rejected. The state of the game is unchanged.
+	 *
+	 * @param playerIdx the index of the player who made the move
+	 * @param cardIdx   the indices of the cards selected, or null for a pass
+	 */
+	public void illegalMove(int playerIdx, int[] cardIdx);
+
+	/**
+	 * Called after handPlayed() when the hand played ended the game.
+	 *
+	 * @param winnerIdx the index of the player who has no cards left
+	 */
+	public void gameEnded(int winnerIdx);
+}
@@ -1,14 +1,58 @@
+import java.util.ArrayList;
+
 /**
  * This class is used to model a Big Two card game server.
  * @author Kenneth Wong
  *
  */
 public class BigTwoServer extends CardGameServer {
+	/**
+	 * The default maximum number of tables hosted by a Big Two server.
+	 */
+	public static final int DEFAULT_MAX_NUM_OF_TABLES = 4096;
+
 	/**
 	 * Creates and returns an instance of the BigTwoServer class.
 	 */
 	public BigTwoServer() {
-		super("Big Two Server", 4);
+		this(DEFAULT_MAX_NUM_OF_TABLES);
+	}
+
+	/**
+	 * Creates and returns an instance of the BigTwoServer class hosting up to
+	 * the specified number of four-player tables.
+	 * 
+	 * @param maxNumOfTables
+	 *            the maximum number of tables
+	 */
+	public BigTwoServer(int maxNumOfTables) {
+		super("Big Two Server", 4, maxNumOfTables);
+	}
+
+	/**
+	 * Creates and returns the authoritative game of a new table.
+	 * 
+	 * @return an instance of the BigTwoEngine class
+	 */
+	public CardGame createGame() {
+		return new BigTwoEngine(4);
+	}
+
+	/**
+	 * Checks the move against the game of the table and applies it if it is
+	 * legal.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards, or null for a pass
+	 * @return true if the move is legal; false otherwise
+	 */
+	protected boolean checkMove(CardGameTable table, int playerID,
+			int[] cardIdx) {
+		return ((BigTwoEngine) table.getGame()).applyMove(playerID, cardIdx);
 	}
 	
 	/**
@@ -23,13 +67,59 @@ public class BigTwoServer extends CardGameServer {
 	 * main() method for starting the server.
 	 * 
 	 * @param args
-	 *            the port to be used by the server. The default port 5000 will
-	 *            be used if no arguments has been supplied
+	 *            the port to be used by the server and the maximum number of
+	 *            tables, optionally preceded by "--nio" (one event loop per
+	 *            processor) or "--nio=N" (N event loops) to serve the clients
+	 *            with non-blocking sockets, by "--virtual" to serve the
+	 *            blocking sockets with virtual threads, by "--queue=N" to
+	 *            bound the outbound queue of a client to N messages, and by
+	 *            "--policy=disconnect|drop-chat|coalesce" to choose what
+	 *            happens when the queue is full, and by
+	 *            "--codec=binary|serialization" to choose the wire format of
+	 *            the messages, and by "--grace=N" to hold the seat of a
+	 *            disconnected player for N seconds (0 to end the game at
+	 *            once). The default port 2396 and
+	 *            DEFAULT_MAX_NUM_OF_TABLES tables will be used if no arguments
+	 *            has been supplied
 	 */
 	public static void main(String[] args) {
-		BigTwoServer server = new BigTwoServer();
-		if (args.length > 0) {
-			server.start(Integer.parseInt(args[0]));
+		int numOfEventLoops = 0;
+		boolean useVirtualThreads = false;
+		int queueCapacity = 256;
+		OutboundQueue.Policy queuePolicy = OutboundQueue.Policy.COALESCE;
+		String codecName = null;
+		long gracePeriod = 30000;
+		ArrayList<String> values = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.equals("--nio")) {
+				numOfEventLoops = Runtime.getRuntime().availableProcessors();
+			} else if (arg.equals("--virtual")) {
+				useVirtualThreads = true;
+			} else if (arg.startsWith("--codec=")) {
+				codecName = arg.substring(8);
+			} else if (arg.startsWith("--grace=")) {
+				gracePeriod = Long.parseLong(arg.substring(8)) * 1000;
+			} else if (arg.startsWith("--queue=")) {
+				queueCapacity = Integer.parseInt(arg.substring(8));
+			} else if (arg.startsWith("--policy=")) {
+				queuePolicy = OutboundQueue.Policy.valueOf(arg.substring(9)
+						.toUpperCase().replace('-', '_'));
+			} else if (arg.startsWith("--nio=")) {
+				numOfEventLoops = Integer.parseInt(arg.substring(6));
+			} else {
+				values.add(arg);
+			}
+		}
+
+		BigTwoServer server = (values.size() > 1) ? new BigTwoServer(
+				Integer.parseInt(values.get(1))) : new BigTwoServer();
+		server.setNumOfEventLoops(numOfEventLoops);
+		server.setUseVirtualThreads(useVirtualThreads);
+		server.setOutboundQueue(queueCapacity, queuePolicy);
+		server.setCodec(MessageCodec.create(codecName, BigTwoDeck::new));
+		server.setGracePeriod(gracePeriod);
+		if (values.size() > 0) {
+			server.start(Integer.parseInt(values.get(0)));
 		} else {
 			server.start(2396);
 		}
@@ -0,0 +1,364 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to encode the messages of a network card game in a
+ * compact binary format. A payload is made of
+ * <ul>
+ * <li>the version of the format (one byte, currently 2),</li>
+ * <li>the type of the message (one byte),</li>
+ * <li>the playerID (a zig-zag varint, so -1 takes one byte),</li>
+ * <li>the sequence number (a varint, absent in version 1),</li>
+ * <li>a tag giving the class of the data (one byte), followed by the data.</li>
+ * </ul>
+ * The data is encoded as follows:
+ * <ul>
+ * <li>TAG_NULL: nothing.</li>
+ * <li>TAG_STRING: the length of the UTF-8 bytes as a varint, then the bytes.</li>
+ * <li>TAG_STRING_ARRAY: the number of strings as a varint, then every string
+ * as its length plus one (0 for null) followed by its UTF-8 bytes.</li>
+ * <li>TAG_INT_ARRAY: if the indices are increasing and below 63, their bit
+ * mask shifted left by one with the lowest bit set, as a varint (so a move of
+ * up to seven cards of a 13-card hand takes one or two bytes); otherwise the
+ * number of indices shifted left by one, then every index, as varints.</li>
+ * <li>TAG_INTEGER and TAG_LONG: a zig-zag varint.</li>
+ * <li>TAG_DECK: the number of cards as a varint, then the ordinal of every
+ * card (see Card.getOrdinal()) as one byte.</li>
+ * </ul>
+ * A varint stores 7 bits per byte, lowest first, with the high bit set on
+ * every byte but the last.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class BinaryCodec implements MessageCodec {
+	/**
+	 * The version of the format written by this codec.
+	 */
+	public static final int VERSION = 2;
+	// The oldest version still decoded
+	private static final int MIN_VERSION = 1;
+
+	private static final int TAG_NULL = 0;
+	private static final int TAG_STRING = 1;
+	private static final int TAG_STRING_ARRAY = 2;
+	private static final int TAG_INT_ARRAY = 3;
+	private static final int TAG_INTEGER = 4;
+	private static final int TAG_DECK = 5;
+	private static final int TAG_LONG = 6;
+
+	// The factory of the decks received in START messages
+	private final Supplier<? extends Deck> deckFactory;
+
+	/**
+	 * Creates and returns an instance of the BinaryCodec class.
+	 *
+	 * @param deckFactory
+	 *            the factory of the decks received, which must return a deck
+	 *            holding every card once (the cards are then reordered), or
+	 *            null to reject decks
+	 */
+	public BinaryCodec(Supplier<? extends Deck> deckFactory) {
+		this.deckFactory = deckFactory;
+	}
+
+	public byte[] encode(GameMessage message) throws IOException {
+		Output out = new Output();
+		out.buf[out.size++] = (byte) VERSION;
+		out.buf[out.size++] = (byte) message.getType();
+		out.writeVarLong(zigZag(message.getPlayerID()));
+		out.writeVarLong(message.getSequence() & 0xFFFFFFFFL);
+
+		Object data = message.getData();
+		if (data == null) {
+			out.writeByte(TAG_NULL);
+		} else if (data instanceof String) {
+			out.writeByte(TAG_STRING);
+			out.writeString((String) data);
+		} else if (data instanceof String[]) {
+			String[] strings = (String[]) data;
+			out.writeByte(TAG_STRING_ARRAY);
+			out.writeVarLong(strings.length);
+			for (String s : strings) {
+				if (s == null) {
+					out.writeVarLong(0);
+				} else {
+					byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+					out.writeVarLong(bytes.length + 1L);
+					out.writeBytes(bytes);
+				}
+			}
+		} else if (data instanceof int[]) {
+			out.writeByte(TAG_INT_ARRAY);
+			writeIndices(out, (int[]) data);
+		} else if (data instanceof Integer) {
+			out.writeByte(TAG_INTEGER);
+			out.writeVarLong(zigZag((Integer) data));
+		} else if (data instanceof Long) {
+			out.writeByte(TAG_LONG);
+			out.writeVarLong(zigZag((Long) data));
+		} else if (data instanceof Deck) {
+			Deck deck = (Deck) data;
+			out.writeByte(TAG_DECK);
+			out.writeVarLong(deck.size());
+			for (int i = 0; i < deck.size(); i++) {
+				out.writeByte(deck.getCard(i).getOrdinal());
+			}
+		} else {
+			throw new IOException("Cannot encode "
+					+ data.getClass().getName());
+		}
+		return Arrays.copyOf(out.buf, out.size);
+	}
+
+	/**
+	 * Writes a list of card indices.
+	 *
+	 * @param out
+	 *            the output
+	 * @param indices
+	 *            the indices
+	 */
+	private static void writeIndices(Output out, int[] indices) {
+		long mask = 0L;
+		int last = -1;
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] <= last || indices[i] >= 63) {
+				mask = -1L;
+				break;
+			}
+			mask |= 1L << indices[i];
+			last = indices[i];
+		}
+		if (mask != -1L) {
+			out.writeVarLong((mask << 1) | 1L);
+		} else {
+			out.writeVarLong((long) indices.length << 1);
+			for (int i = 0; i < indices.length; i++) {
+				out.writeVarLong(zigZag(indices[i]));
+			}
+		}
+	}
+
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException {
+		Input in = new Input(payload, offset, offset + length);
+		int version = in.readByte();
+		if (version < MIN_VERSION || version > VERSION) {
+			throw new StreamCorruptedException("Unsupported version: " + version);
+		}
+		int type = in.readByte();
+		int playerID = (int) unZigZag(in.readVarLong());
+		int sequence = (version >= 2) ? (int) in.readVarLong() : 0;
+
+		Object data;
+		int tag = in.readByte();
+		switch (tag) {
+		case TAG_NULL:
+			data = null;
+			break;
+		case TAG_STRING:
+			data = in.readString((int) in.readVarLong());
+			break;
+		case TAG_STRING_ARRAY: {
+			String[] strings = new String[in.readCount()];
+			for (int i = 0; i < strings.length; i++) {
+				int n = (int) in.readVarLong();
+				strings[i] = (n == 0) ? null : in.readString(n - 1);
+			}
+			data = strings;
+			break;
+		}
+		case TAG_INT_ARRAY:
+			data = readIndices(in);
+			break;
+		case TAG_INTEGER:
+			data = Integer.valueOf((int) unZigZag(in.readVarLong()));
+			break;
+		case TAG_LONG:
+			data = Long.valueOf(unZigZag(in.readVarLong()));
+			break;
+		case TAG_DECK:
+			data = readDeck(in);
+			break;
+		default:
+			throw new StreamCorruptedException("Unknown data tag: " + tag);
+		}
+		if (in.pos != in.end) {
+			throw new StreamCorruptedException("Trailing bytes in message");
+		}
+		CardGameMessage message = new CardGameMessage(type, playerID, data);
+		message.setSequence(sequence);
+		return message;
+	}
+
+	/**
+	 * Reads a list of card indices.
+	 *
+	 * @param in
+	 *            the input
+	 * @return the indices
+	 * @throws IOException
+	 *             if the input is malformed
+	 */
+	private static int[] readIndices(Input in) throws IOException {
+		long header = in.readVarLong();
+		if ((header & 1L) != 0L) {
+			long mask = header >>> 1;
+			int[] indices = new int[Long.bitCount(mask)];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = Long.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+			}
+			return indices;
+		}
+		int[] indices = new int[in.checkCount(header >>> 1)];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = (int) unZigZag(in.readVarLong());
+		}
+		return indices;
+	}
+
+	/**
+	 * Reads a deck.
+	 *
+	 * @param in
+	 *            the input
+	 * @return a new deck holding the cards in the order received
+	 * @throws IOException
+	 *             if the input is malformed or decks are not accepted
+	 */
+	private Deck readDeck(Input in) throws IOException {
+		if (deckFactory == null) {
+			throw new StreamCorruptedException("Decks are not accepted");
+		}
+		Deck deck = deckFactory.get();
+		Card[] cards = new Card[CardSet.NUM_OF_CARDS];
+		for (int i = 0; i < deck.size(); i++) {
+			Card card = deck.getCard(i);
+			cards[card.getOrdinal()] = card;
+		}
+		int n = in.readCount();
+		Card[] order = new Card[n];
+		for (int i = 0; i < n; i++) {
+			int ordinal = in.readByte();
+			if (ordinal >= cards.length || cards[ordinal] == null) {
+				throw new StreamCorruptedException("Invalid card: " + ordinal);
+			}
+			order[i] = cards[ordinal];
+		}
+		deck.removeAllCards();
+		for (int i = 0; i < n; i++) {
+			deck.addCard(order[i]);
+		}
+		return deck;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1L);
+	}
+
+	/**
+	 * This inner class is used to build a payload.
+	 */
+	private static final class Output {
+		private byte[] buf = new byte[32];
+		private int size = 0;
+
+		private void ensure(int n) {
+			if (size + n > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+			}
+		}
+
+		private void writeByte(int b) {
+			ensure(1);
+			buf[size++] = (byte) b;
+		}
+
+		private void writeBytes(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, size, bytes.length);
+			size += bytes.length;
+		}
+
+		private void writeVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7FL) != 0L) {
+				buf[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buf[size++] = (byte) value;
+		}
+
+		private void writeString(String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length);
+			writeBytes(bytes);
+		}
+	}
+
+	/**
+	 * This inner class is used to read a payload.
+	 */
+	private static final class Input {
+		private final byte[] buf;
+		private final int end;
+		private int pos;
+
+		private Input(byte[] buf, int pos, int end) {
+			this.buf = buf;
+			this.pos = pos;
+			this.end = end;
+		}
+
+		private int readByte() throws IOException {
+			if (pos >= end) {
+				throw new EOFException("Truncated message");
+			}
+			return buf[pos++] & 0xFF;
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0L;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new StreamCorruptedException("Malformed varint");
+		}
+
+		private int readCount() throws IOException {
+			return checkCount(readVarLong());
+		}
+
+		private int checkCount(long count) throws IOException {
+			// every element takes at least one byte
+			if (count < 0 || count > end - pos) {
+				throw new StreamCorruptedException("Invalid count: " + count);
+			}
+			return (int) count;
+		}
+
+		private String readString(int length) throws IOException {
+			if (length < 0 || length > end - pos) {
+				throw new StreamCorruptedException("Invalid string length: "
+						+ length);
+			}
+			String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+			pos += length;
+			return s;
+		}
+	}
+}
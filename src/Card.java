@@ -11,11 +11,24 @@ public class Card implements Comparable<Card>, Serializable {
 	private static final char[] SUITS = { '\u2666', '\u2663', '\u2665', '\u2660' }; // {Diamond, Club, Heart, Spade}
 	private static final char[] RANKS = { 'A', '2', '3', '4', '5', '6', '7', '8', '9', '0', 'J', 'Q', 'K' };
 
+	private static final Card[] CARDS = new Card[52]; // canonical instances indexed by ordinal
+
+	static {
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 13; j++) {
+				CARDS[i * 13 + j] = new Card(i, j);
+			}
+		}
+	}
+
 	protected final int suit; // 0 - 3
 	protected final int rank; // 0 - 12
+	protected final int ordinal; // suit * 13 + rank, 0 - 51
 
 	/**
-	 * Creates and returns an instance of the Card class.
+	 * Creates an instance of the Card class. Cards are immutable and interned,
+	 * so instances are obtained through valueOf(); the constructor is only
+	 * visible to the subclasses building their own canonical instances.
 	 * 
 	 * @param suit an int value between 0 and 3 representing the suit of a card:
 	 *             <p>
@@ -25,9 +38,32 @@ public class Card implements Comparable<Card>, Serializable {
 	 *             0 = 'A', 1 = '2', 2 = '3', ..., 8 = '9', 9 = '0', 10 = 'J', 11 =
 	 *             'Q', 12 = 'K'
 	 */
-	public Card(int suit, int rank) {
+	Card(int suit, int rank) {
 		this.suit = suit;
 		this.rank = rank;
+		this.ordinal = suit * 13 + rank;
+	}
+
+	/**
+	 * Returns the canonical instance of the card with the specified suit and
+	 * rank.
+	 * 
+	 * @param suit an int value between 0 and 3 representing the suit of a card
+	 * @param rank an int value between 0 and 12 representing the rank of a card
+	 * @return the shared Card instance with the specified suit and rank
+	 */
+	public static Card valueOf(int suit, int rank) {
+		return CARDS[suit * 13 + rank];
+	}
+
+	/**
+	 * Returns the canonical instance of the card with the specified ordinal.
+	 * 
+	 * @param ordinal an int value between 0 and 51 (suit * 13 + rank)
+	 * @return the shared Card instance with the specified ordinal
+	 */
+	public static Card valueOf(int ordinal) {
+		return CARDS[ordinal];
 	}
 
 	/**
@@ -53,6 +89,15 @@ public class Card implements Comparable<Card>, Serializable {
 		return rank;
 	}
 
+	/**
+	 * Returns the ordinal of a card, which is unique for each card of a deck.
+	 * 
+	 * @return an int value between 0 and 51 equal to suit * 13 + rank
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
 	/**
 	 * Returns a string representation of the card.
 	 * 
@@ -95,7 +140,7 @@ public class Card implements Comparable<Card>, Serializable {
 	 *         false otherwise
 	 */
 	public boolean equals(Object card) {
-		return (this.rank == ((Card) card).getRank() && suit == ((Card) card).getSuit());
+		return (card instanceof Card) && this.ordinal == ((Card) card).ordinal;
 	}
 
 	/**
@@ -104,6 +149,16 @@ public class Card implements Comparable<Card>, Serializable {
 	 * @return a hash code value for the card
 	 */
 	public int hashCode() {
-		return rank;
+		return ordinal;
+	}
+
+	/**
+	 * Replaces a deserialized card with the canonical instance.
+	 * 
+	 * @return the shared Card instance with the same suit and rank
+	 */
+	protected Object readResolve() {
+		// streams written before cards were interned have no ordinal, so it is not used here
+		return valueOf(suit, rank);
 	}
 }
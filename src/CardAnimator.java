@@ -0,0 +1,234 @@
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The CardAnimator class is used to animate the cards of a hand as they are selected and unselected.
+ * Every card has a lift, i.e. the number of pixels it is raised by, which moves towards its target
+ * over a short time. A single javax.swing.Timer, running on the event dispatch thread at the refresh
+ * rate of the screen, moves all the cards at once and stops when none of them is moving. A Listener is
+ * told every time the lift of a card changes, so that only the area of that card is repainted.
+ * <p>
+ * A card given a new target while it is moving starts from where it is, so a move can be interrupted
+ * at any time. A move can also be queued to follow the moves of the card which are not done yet.
+ *
+ * @author DaveMatthew
+ */
+public class CardAnimator implements ActionListener {
+	/**
+	 * The interface of the objects told about the moves of the cards.
+	 *
+	 * @author DaveMatthew
+	 */
+	public interface Listener {
+		/**
+		 * a method called on the event dispatch thread when the lift of a card has changed.
+		 *
+		 * @param cardIdx the index of the card
+		 * @param oldLift the lift of the card before the change
+		 * @param newLift the lift of the card after the change
+		 */
+		public void cardMoved(int cardIdx, int oldLift, int newLift);
+	}
+
+	/**
+	 * the time taken by a move, in milliseconds.
+	 */
+	private static final int DURATION = 120;
+
+	/**
+	 * the refresh rate assumed when the one of the screen is unknown.
+	 */
+	private static final int DEFAULT_REFRESH_RATE = 60;
+
+	private final Listener listener;
+	private final Timer timer;
+	// the current lift of every card
+	private final int[] lift;
+	// the lift of every moving card at the start of its move
+	private final int[] from;
+	// the target of every moving card
+	private final int[] to;
+	// the time at which the move of every moving card has started, in nanoseconds
+	private final long[] startTime;
+	// whether every card is moving
+	private final boolean[] moving;
+	// the targets of the moves queued for every card
+	private final ArrayList<ArrayDeque<Integer>> queued;
+	// the number of cards moving
+	private int numOfMoving = 0;
+
+	/**
+	 * a constructor for creating a CardAnimator for the specified number of cards, none of them lifted.
+	 *
+	 * @param numOfCards the maximum number of cards of a hand
+	 * @param listener the object told about the moves of the cards
+	 */
+	public CardAnimator(int numOfCards, Listener listener) {
+		this.listener = listener;
+		this.lift = new int[numOfCards];
+		this.from = new int[numOfCards];
+		this.to = new int[numOfCards];
+		this.startTime = new long[numOfCards];
+		this.moving = new boolean[numOfCards];
+		this.queued = new ArrayList<ArrayDeque<Integer>>();
+		for (int i = 0; i<numOfCards; i++) {
+			this.queued.add(new ArrayDeque<Integer>());
+		}
+		this.timer = new Timer(getFrameDelay(), this);
+	}
+
+	/**
+	 * a method for getting the time between two frames, from the refresh rate of the screen.
+	 *
+	 * @return the time between two frames, in milliseconds
+	 */
+	private static int getFrameDelay() {
+		int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+		if (!GraphicsEnvironment.isHeadless()) {
+			refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+		}
+		if (refreshRate <= 0) {
+			refreshRate = DEFAULT_REFRESH_RATE;
+		}
+		return Math.max(1, 1000 / refreshRate);
+	}
+
+	/**
+	 * a method for getting the current lift of a card.
+	 *
+	 * @param cardIdx the index of the card
+	 * @return the number of pixels the card is raised by
+	 */
+	public int getLift(int cardIdx) {
+		return this.lift[cardIdx];
+	}
+
+	/**
+	 * a method for moving a card to the specified lift. Any move of the card in progress or queued is
+	 * given up, and the card starts from where it is.
+	 *
+	 * @param cardIdx the index of the card
+	 * @param target the number of pixels the card is to be raised by
+	 */
+	public void moveTo(int cardIdx, int target) {
+		this.queued.get(cardIdx).clear();
+		this.start(cardIdx, target, System.nanoTime());
+	}
+
+	/**
+	 * a method for moving a card to the specified lift after its moves in progress and queued are done.
+	 *
+	 * @param cardIdx the index of the card
+	 * @param target the number of pixels the card is to be raised by
+	 */
+	public void queue(int cardIdx, int target) {
+		if (this.moving[cardIdx]) {
+			this.queued.get(cardIdx).add(target);
+		}
+		else {
+			this.start(cardIdx, target, System.nanoTime());
+		}
+	}
+
+	/**
+	 * a method for putting down all the cards at once, giving up their moves. It may be called from any
+	 * thread; the cards are put down on the event dispatch thread.
+	 */
+	public void reset() {
+		if (!SwingUtilities.isEventDispatchThread()) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					reset();
+				}
+			});
+			return;
+		}
+		for (int i = 0; i<this.lift.length; i++) {
+			this.queued.get(i).clear();
+			this.stop(i);
+			this.setLift(i, 0);
+		}
+	}
+
+	/**
+	 * a method for starting the move of a card.
+	 *
+	 * @param cardIdx the index of the card
+	 * @param target the lift at the end of the move
+	 * @param now the time at which the move starts, in nanoseconds
+	 */
+	private void start(int cardIdx, int target, long now) {
+		this.from[cardIdx] = this.lift[cardIdx];
+		this.to[cardIdx] = target;
+		this.startTime[cardIdx] = now;
+		if (!this.moving[cardIdx]) {
+			this.moving[cardIdx] = true;
+			this.numOfMoving++;
+		}
+		if (!this.timer.isRunning()) {
+			this.timer.start();
+		}
+	}
+
+	/**
+	 * a method for stopping the move of a card where it is.
+	 *
+	 * @param cardIdx the index of the card
+	 */
+	private void stop(int cardIdx) {
+		if (this.moving[cardIdx]) {
+			this.moving[cardIdx] = false;
+			this.numOfMoving--;
+		}
+		if (this.numOfMoving == 0) {
+			this.timer.stop();
+		}
+	}
+
+	/**
+	 * a method for changing the lift of a card and telling the listener about it.
+	 *
+	 * @param cardIdx the index of the card
+	 * @param value the new lift of the card
+	 */
+	private void setLift(int cardIdx, int value) {
+		int oldLift = this.lift[cardIdx];
+		if (oldLift != value) {
+			this.lift[cardIdx] = value;
+			this.listener.cardMoved(cardIdx, oldLift, value);
+		}
+	}
+
+	/**
+	 * a method called by the timer for every frame, moving every moving card to where it should be by now.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		long now = System.nanoTime();
+		for (int i = 0; i<this.lift.length; i++) {
+			if (!this.moving[i]) {
+				continue;
+			}
+			double t = Math.min(1.0, (now - this.startTime[i]) / (DURATION * 1e6));
+			// eases out, so that the card slows down as it reaches its target
+			double progress = 1.0 - (1.0 - t) * (1.0 - t);
+			this.setLift(i, this.from[i] + (int) Math.round((this.to[i] - this.from[i]) * progress));
+			if (t >= 1.0) {
+				Integer next = this.queued.get(i).poll();
+				if (next != null) {
+					this.start(i, next, now);
+				}
+				else {
+					this.stop(i);
+				}
+			}
+		}
+	}
+}
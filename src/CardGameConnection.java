@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * This class is used to model the connection between a card game server and
+ * one of its clients, independently of the transport carrying the messages.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public abstract class CardGameConnection {
+	// Whether the first message of the client has been handled, i.e. the
+	// client has been seated or refused
+	private boolean admitted = false;
+
+	/**
+	 * Returns true if the first message of the client has been handled.
+	 * Called by the server, with the messages of the connection.
+	 *
+	 * @return true if the client has been seated or refused
+	 */
+	boolean isAdmitted() {
+		return admitted;
+	}
+
+	/**
+	 * Marks the first message of the client as handled. Called by the
+	 * server, with the messages of the connection.
+	 */
+	void admit() {
+		admitted = true;
+	}
+
+	/**
+	 * Returns the address of the client.
+	 *
+	 * @return the remote address of the connection
+	 */
+	public abstract SocketAddress getRemoteSocketAddress();
+
+	/**
+	 * Sends the specified message to the client. The message is only queued;
+	 * its frame may be shared with other connections.
+	 *
+	 * @param message
+	 *            the encoded message to be sent
+	 * @throws IOException
+	 *             if the message cannot be sent
+	 */
+	public abstract void sendMessage(EncodedMessage message)
+			throws IOException;
+
+	/**
+	 * Closes the connection once the messages already sent have been
+	 * delivered.
+	 */
+	public abstract void close();
+
+	/**
+	 * Returns the number of messages waiting to be sent to the client.
+	 *
+	 * @return the depth of the outbound queue
+	 */
+	public abstract int getQueueDepth();
+}
@@ -0,0 +1,365 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to load a card game server with many connected clients
+ * and to measure what they cost it. The server is started in this process,
+ * and the clients are run by a second Java process, so that the threads and
+ * the memory measured are those of the server alone, and the sockets of both
+ * ends do not share the limit of open files of one process.
+ * <p>
+ * Every client is a blocking socket with a reader thread of its own. It joins
+ * a table, then the clients send chat messages at a fixed rate, which the
+ * server broadcasts to the players of their tables. Once all the clients are
+ * connected, the number of threads, the heap used after a garbage collection
+ * and the resident set size of the server are sampled; at the end, the
+ * messages sent and received per second are reported.
+ * <p>
+ * Usage: java CardGameLoadTest [--clients=N] [--server=blocking|virtual|nio]
+ * [--codec=binary|serialization] [--seconds=S] [--rate=R] [--port=P]
+ * <p>
+ * The server is run with platform threads (blocking), virtual threads
+ * (virtual, Java 21 or later) or an event loop per processor (nio), and the
+ * server and the clients use the same codec. R is the number of chat messages
+ * per client per second.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class CardGameLoadTest {
+	// The stack size of the client threads, which only read
+	private static final long CLIENT_STACK_SIZE = 128 * 1024;
+	// The time left to the server to deliver the last messages, in ms
+	private static final long DRAIN_TIME = 2000;
+	// The line printed by the clients once they are all connected
+	private static final String CONNECTED = "Connected ";
+
+	// The number of messages received by all the clients
+	private static final AtomicLong numOfReceived = new AtomicLong();
+	// The number of clients whose connection has failed
+	private static final AtomicInteger numOfFailed = new AtomicInteger();
+	// Whether the test is over, so that closed connections are not failures
+	private static volatile boolean stopping = false;
+	// The codec of the messages
+	private static MessageCodec codec;
+
+	/**
+	 * main() method for running the load test.
+	 *
+	 * @param args
+	 *            the options described in the class comment
+	 * @throws Exception
+	 *             if the test cannot be run
+	 */
+	public static void main(String[] args) throws Exception {
+		int numOfClients = 10000;
+		int seconds = 10;
+		double rate = 0.1;
+		int port = 2397;
+		String serverMode = "blocking";
+		String codecName = null;
+		String address = null;
+		for (String arg : args) {
+			if (arg.startsWith("--clients=")) {
+				numOfClients = Integer.parseInt(arg.substring(10));
+			} else if (arg.startsWith("--seconds=")) {
+				seconds = Integer.parseInt(arg.substring(10));
+			} else if (arg.startsWith("--rate=")) {
+				rate = Double.parseDouble(arg.substring(7));
+			} else if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring(7));
+			} else if (arg.startsWith("--server=")) {
+				serverMode = arg.substring(9);
+			} else if (arg.startsWith("--codec=")) {
+				codecName = arg.substring(8);
+			} else if (arg.startsWith("--connect=")) {
+				// run by the server process as the process of the clients
+				address = arg.substring(10);
+			} else {
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+		codec = MessageCodec.create(codecName, BigTwoDeck::new);
+		if (address != null) {
+			int colon = address.lastIndexOf(':');
+			runClients(address.substring(0, colon),
+					Integer.parseInt(address.substring(colon + 1)),
+					numOfClients, seconds, rate);
+		} else {
+			runServer(serverMode, codecName, port, numOfClients, seconds, rate);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Starts a Big Two server in this process, runs the clients in another
+	 * process and reports what the server uses.
+	 *
+	 * @param serverMode
+	 *            "blocking", "virtual" or "nio"
+	 * @param codecName
+	 *            the name of the codec, or null for the default one
+	 * @param port
+	 *            the port of the server
+	 * @param numOfClients
+	 *            the number of clients
+	 * @param seconds
+	 *            the time during which the clients send messages
+	 * @param rate
+	 *            the number of messages per client per second
+	 * @throws Exception
+	 *             if the test cannot be run
+	 */
+	private static void runServer(String serverMode, String codecName,
+			final int port, int numOfClients, int seconds, double rate)
+			throws Exception {
+		PrintStream out = System.out;
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+		final BigTwoServer server = new BigTwoServer(numOfClients / 4 + 1);
+		server.setCodec(MessageCodec.create(codecName, BigTwoDeck::new));
+		boolean supported = true;
+		if (serverMode.equals("nio")) {
+			server.setNumOfEventLoops(Runtime.getRuntime().availableProcessors());
+		} else if (serverMode.equals("virtual")) {
+			supported = server.setUseVirtualThreads(true);
+		} else if (!serverMode.equals("blocking")) {
+			throw new IllegalArgumentException("Unknown server: " + serverMode);
+		}
+		out.println("Load test: " + numOfClients + " clients, " + rate
+				+ " messages/s per client for " + seconds + " s, server "
+				+ serverMode + (supported ? "" : " (not supported, platform threads)")
+				+ ", codec " + codec.getClass().getSimpleName() + ", " + System.getProperty("java.vm.name") + " "
+				+ System.getProperty("java.version"));
+
+		// the server logs every message, which would swamp the report
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				server.start(port);
+			}
+		}, "load-server");
+		thread.setDaemon(true);
+		thread.start();
+		waitForServer(port);
+		out.println("Idle server:      " + sample(threads, memory));
+
+		// runs the clients in a new process with the classpath of this one
+		String java = System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java";
+		ArrayList<String> command = new ArrayList<String>();
+		command.add(java);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(CardGameLoadTest.class.getName());
+		command.add("--connect=localhost:" + port);
+		command.add("--clients=" + numOfClients);
+		command.add("--seconds=" + seconds);
+		command.add("--rate=" + rate);
+		if (codecName != null) {
+			command.add("--codec=" + codecName);
+		}
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		Process clients = builder.start();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				clients.getInputStream()));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			out.println(line);
+			if (line.startsWith(CONNECTED)) {
+				out.println("Connected server: " + sample(threads, memory));
+				// lets the clients send their messages
+				clients.getOutputStream().write('\n');
+				clients.getOutputStream().flush();
+			}
+		}
+		clients.waitFor();
+		out.println("Peak threads of the server process: "
+				+ threads.getPeakThreadCount());
+	}
+
+	/**
+	 * Samples the threads and the memory of this process.
+	 *
+	 * @param threads
+	 *            the thread bean of this process
+	 * @param memory
+	 *            the memory bean of this process
+	 * @return the number of live platform threads, the heap used after a
+	 *         garbage collection and the resident set size
+	 */
+	private static String sample(ThreadMXBean threads, MemoryMXBean memory) {
+		memory.gc();
+		long heap = memory.getHeapMemoryUsage().getUsed();
+		long rss = getResidentSetSize();
+		return threads.getThreadCount() + " platform threads, heap after GC "
+				+ (heap >> 20) + " MB, RSS "
+				+ ((rss < 0) ? "unknown" : (rss >> 20) + " MB");
+	}
+
+	/**
+	 * Returns the resident set size of this process, read from
+	 * /proc/self/status on Linux.
+	 *
+	 * @return the resident set size in bytes, or -1 if it is unknown
+	 */
+	private static long getResidentSetSize() {
+		try (BufferedReader status = new BufferedReader(new FileReader(
+				"/proc/self/status"))) {
+			String line;
+			while ((line = status.readLine()) != null) {
+				if (line.startsWith("VmRSS:")) {
+					// e.g. "VmRSS:	  123456 kB"
+					String kb = line.substring(6).trim().split("\\s+")[0];
+					return Long.parseLong(kb) * 1024;
+				}
+			}
+		} catch (IOException | NumberFormatException ex) {
+			// not Linux
+		}
+		return -1;
+	}
+
+	/**
+	 * Waits until the server accepts connections.
+	 *
+	 * @param port
+	 *            the port of the server
+	 * @throws InterruptedException
+	 *             if the thread is interrupted
+	 */
+	private static void waitForServer(int port) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			try {
+				new Socket("localhost", port).close();
+				// leaves the server the time to drop the probe
+				Thread.sleep(200);
+				return;
+			} catch (IOException ex) {
+				Thread.sleep(100);
+			}
+		}
+		throw new IllegalStateException("The server has not started");
+	}
+
+	/**
+	 * Connects the clients to the server, waits for a line on the standard
+	 * input, and makes them send chat messages at the specified rate.
+	 *
+	 * @param host
+	 *            the host of the server
+	 * @param port
+	 *            the port of the server
+	 * @param numOfClients
+	 *            the number of clients
+	 * @param seconds
+	 *            the time during which the clients send messages
+	 * @param rate
+	 *            the number of messages per client per second
+	 * @throws Exception
+	 *             if the test cannot be run
+	 */
+	private static void runClients(String host, int port, int numOfClients,
+			int seconds, double rate) throws Exception {
+		ArrayList<FramedMessageStream> clients = new ArrayList<FramedMessageStream>();
+		long start = System.nanoTime();
+		for (int i = 0; i < numOfClients; i++) {
+			try {
+				final FramedMessageStream stream = new FramedMessageStream(
+						new Socket(host, port), codec);
+				stream.writeMessage(new CardGameMessage(CardGameMessage.JOIN,
+						-1, "client" + i));
+				stream.flush();
+				Thread reader = new Thread(null, new Runnable() {
+					public void run() {
+						receive(stream);
+					}
+				}, "load-client-" + i, CLIENT_STACK_SIZE);
+				reader.setDaemon(true);
+				reader.start();
+				clients.add(stream);
+			} catch (IOException ex) {
+				numOfFailed.incrementAndGet();
+			}
+		}
+		long connectNanos = System.nanoTime() - start;
+		System.out.printf(CONNECTED + "%d clients in %.1f s (%d failed)%n",
+				clients.size(), connectNanos / 1e9, numOfFailed.get());
+		System.out.flush();
+		Thread.sleep(DRAIN_TIME);
+		new BufferedReader(new InputStreamReader(System.in)).readLine();
+
+		// sends the chat messages at the requested rate
+		long received = numOfReceived.get();
+		long numOfSent = 0;
+		long total = (long) (clients.size() * rate * seconds);
+		long intervalNanos = (long) (1e9 / Math.max(1e-9, clients.size() * rate));
+		start = System.nanoTime();
+		for (long n = 0; n < total; n++) {
+			long wait = start + n * intervalNanos - System.nanoTime();
+			if (wait > 1000000) {
+				Thread.sleep(wait / 1000000);
+			}
+			try {
+				FramedMessageStream stream = clients.get((int) (n % clients.size()));
+				stream.writeMessage(new CardGameMessage(CardGameMessage.MSG, -1,
+						"message " + n));
+				stream.flush();
+				numOfSent++;
+			} catch (IOException ex) {
+				// the connection has failed, its reader counts it
+			}
+		}
+		long sendNanos = System.nanoTime() - start;
+		Thread.sleep(DRAIN_TIME);
+		long numOfDelivered = numOfReceived.get() - received;
+
+		System.out.printf("Sent %d messages in %.1f s (%.0f messages/s), "
+				+ "received %d of %d broadcasts (%.0f messages/s)%n", numOfSent,
+				sendNanos / 1e9, numOfSent / (sendNanos / 1e9), numOfDelivered,
+				numOfSent * 4, numOfDelivered / (sendNanos / 1e9));
+		System.out.println("Failed connections: " + numOfFailed.get());
+		stopping = true;
+		for (FramedMessageStream stream : clients) {
+			try {
+				stream.close();
+			} catch (IOException ex) {
+				// closing anyway
+			}
+		}
+	}
+
+	/**
+	 * Reads and counts the messages sent to a client until its connection
+	 * ends.
+	 *
+	 * @param stream
+	 *            the stream of the client
+	 */
+	private static void receive(FramedMessageStream stream) {
+		try {
+			while (true) {
+				stream.readMessage();
+				numOfReceived.incrementAndGet();
+			}
+		} catch (IOException ex) {
+			if (!stopping) {
+				numOfFailed.incrementAndGet();
+			}
+		}
+	}
+}
@@ -7,16 +7,20 @@
 public class CardGameMessage extends GameMessage {
 	private static final long serialVersionUID = -4847411748052026276L;
 	/**
-	 * Sent by the server to a client when a connection is established. In this
-	 * message, playerID specifies the playerID of the local player, and data is
-	 * a reference to a regular array of strings specifying the names of the
-	 * players
+	 * Sent by the server to a client when it is seated at a table, i.e. after
+	 * the first message of a connection unless it resumes a game (see
+	 * RESUME). In this message, playerID specifies the playerID of the local
+	 * player, and data is a reference to a regular array of strings
+	 * specifying the names of the players
 	 */
 	public static final int PLAYER_LIST = 0;
 	/**
-	 * Sent by a client to the server when a connection is established. In this
-	 * message, playerID specifies the playerID of the player, and data is
-	 * simply null (not being used).
+	 * Sent by a client to the server when a connection is established, or
+	 * after it is seated at another table. In this message, playerID
+	 * specifies the playerID of the player, and data is a reference to a
+	 * string specifying the name of the player. The server seats a client at
+	 * a table when it receives the first message of the connection, so a
+	 * client sends JOIN (or RESUME) first and then receives the player list.
 	 */
 	public static final int JOIN = 1;
 	/**
@@ -42,12 +46,19 @@ public class CardGameMessage extends GameMessage {
 	/**
 	 * Broadcast by the server when all clients are ready for a new game. In this message, playerID is 
 	 * -1 (no being used), and data is a reference to a Deck object (a shuffled deck for the new game).
+	 * A server holding the game deals the cards itself and sends every client its own message
+	 * instead: playerID specifies the player who moves first, and data is a reference to an array
+	 * of int holding the number of cards of every player followed by the ordinals of the cards of
+	 * the receiver. The START and MOVE messages of such a server carry consecutive sequence numbers
+	 * (see GameMessage.getSequence()).
 	 */
 	public static final int START = 5;
 	/**
 	 * Sent by a client when the local player makes a move. The server will broadcast this message upon
 	 * receiving it. In this message, playerID specifies the player who makes the move, and data is a
-	 * reference to an array of int specifying the indices of the cards being played.
+	 * reference to an array of int specifying the indices of the cards being played. A server
+	 * holding the game broadcasts the cards themselves instead, as a Long holding their bits (see
+	 * CardSet), since the clients do not know the cards of the other players.
 	 */
 	public static final int MOVE = 6;
 	/**
@@ -57,6 +68,56 @@ public class CardGameMessage extends GameMessage {
 	 * sent this chat message, and data is a reference to a string containing a formated chat message.
 	 */
 	public static final int MSG = 7;
+	/**
+	 * Sent by the server to a client when the move it sent is rejected. The move is not broadcast to
+	 * the other clients. In this message, playerID specifies the player who made the move, and data is
+	 * a reference to the array of int from the rejected MOVE message (or null for a rejected pass).
+	 */
+	public static final int ILLEGAL = 8;
+	/**
+	 * Sent by a client to the server to move to another table. The client leaves its current table
+	 * (which receives a QUIT message) and the server answers with the PLAYER_LIST of the new table,
+	 * or with a FULL message if the new table has no empty seat. In this message, playerID is -1 (not
+	 * being used), and data is a reference to an Integer specifying the id of the table.
+	 */
+	public static final int TABLE = 9;
+	/**
+	 * Sent by a server holding the game to a client, periodically and in answer to a RESYNC message,
+	 * to replace the state of the game of the client. In this message, playerID specifies the
+	 * current player, the sequence number is that of the last change of state included, and data is
+	 * a reference to an array of int holding the number of cards of every player, the playerID of
+	 * the player of the last hand on the table (or -1), the number of cards of that hand and their
+	 * ordinals, followed by the ordinals of the cards of the receiver.
+	 */
+	public static final int SNAPSHOT = 10;
+	/**
+	 * Sent by a client to the server when it misses a change of state, i.e. when the sequence number
+	 * of a START or MOVE message is not the one following the last it applied. The server answers
+	 * with the MOVE messages missed, or with a SNAPSHOT if they are no longer available. In this
+	 * message, playerID is -1 (not being used), and data is a reference to an Integer specifying the
+	 * sequence number of the last change of state applied by the client.
+	 */
+	public static final int RESYNC = 11;
+	/**
+	 * Sent by a server holding the game to a client after it joins, to give it a reconnect token.
+	 * If the connection of the client is lost during a game, its seat is held for a grace period,
+	 * during which a new connection can take it back with a RESUME message. In this message,
+	 * playerID specifies the player, and data is a reference to a Long specifying the token.
+	 */
+	public static final int SESSION = 12;
+	/**
+	 * Sent by a client holding a reconnect token to the server, instead of JOIN, as the first
+	 * message of a new connection, so that the server checks the token before seating the client
+	 * anywhere: playerID is -1 (not being used), and data is a reference to a Long
+	 * specifying the token. The server answers with a RESUME message in which playerID specifies the
+	 * seat taken back and data is a reference to a regular array of strings specifying the names of
+	 * the players; its sequence number is that of the SNAPSHOT of the game which follows, or 0 if
+	 * the game has been abandoned in the meantime. If the seat has been freed, the server answers
+	 * with a RESUME message in which playerID is -1 and data is null, seats the client at a table
+	 * with an empty seat, and the client joins as usual. A RESUME message which is not the first
+	 * message of its connection is always refused, and the client stays at its table.
+	 */
+	public static final int RESUME = 13;
 
 	/**
 	 * Creates and returns an instance of CardGameMessage.
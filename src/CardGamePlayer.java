@@ -7,6 +7,7 @@ public class CardGamePlayer {
 	private static int playerId = 0;
 	private String name = "";
 	private CardList cardsInHand = new CardList();
+	private int numOfHiddenCards = 0;
 
 	/**
 	 * Creates and returns an instance of the Player class.
@@ -54,14 +55,40 @@ public class CardGamePlayer {
 		}
 	}
 
+	/**
+	 * Adds the specified number of cards that are held by this player but not
+	 * known locally, such as the cards of an opponent dealt by a server.
+	 * 
+	 * @param numOfCards the number of hidden cards to be added to this player
+	 */
+	public void addHiddenCards(int numOfCards) {
+		if (numOfCards > 0) {
+			numOfHiddenCards += numOfCards;
+		}
+	}
+
+	/**
+	 * Returns the number of cards held by this player but not known locally.
+	 * 
+	 * @return the number of hidden cards held by this player
+	 */
+	public int getNumOfHiddenCards() {
+		return numOfHiddenCards;
+	}
+
 	/**
 	 * Removes the list of cards from this player, if they are held by this player.
+	 * The cards not found in the known cards of this player are taken from its
+	 * hidden cards.
 	 * 
 	 * @param cards the list of cards to be removed from this player
 	 */
 	public void removeCards(CardList cards) {
-		for (int i = 0; i < cards.size(); i++) {
-			cardsInHand.removeCard(cards.getCard(i));
+		int numOfKnownCards = cardsInHand.size();
+		cardsInHand.removeCards(cards);
+		if (numOfHiddenCards > 0) {
+			int numOfUnknownCards = cards.size() - (numOfKnownCards - cardsInHand.size());
+			numOfHiddenCards = Math.max(0, numOfHiddenCards - numOfUnknownCards);
 		}
 	}
 
@@ -69,16 +96,17 @@ public class CardGamePlayer {
 	 * Removes all cards from this player.
 	 */
 	public void removeAllCards() {
-		cardsInHand = new CardList();
+		cardsInHand.removeAllCards();
+		numOfHiddenCards = 0;
 	}
 
 	/**
-	 * Returns the number of cards held by this player.
+	 * Returns the number of cards held by this player, including its hidden cards.
 	 * 
 	 * @return the number of cards held by this player
 	 */
 	public int getNumOfCards() {
-		return cardsInHand.size();
+		return cardsInHand.size() + numOfHiddenCards;
 	}
 
 	/**
@@ -1,9 +1,20 @@
+import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -12,9 +23,14 @@ import javax.swing.JMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 
 /**
- * This class is used to model a card game server.
+ * This class is used to model a card game server. A server hosts many
+ * independent tables (see CardGameTable), each seating up to
+ * maxNumOfPlayers clients with its own game. A new connection is seated at
+ * the first table with an empty seat, or at a new table, and a client may
+ * move to a given table with a TABLE message.
  * 
  * @author Kenneth Wong
  *
@@ -26,25 +42,54 @@ public class CardGameServer {
 	private String serverName;
 	// The maximum number of players in a card game
 	private final int maxNumOfPlayers;
-	// Array for holding sockets of the clients
-	private Socket[] clientSockets;
-	// Array for holding ObjectOutputStreams of the clients
-	private ObjectOutputStream[] clientOutputStreams;
-	// Array for holding player names of the clients
-	private String[] clientNames;
-	// Array for holding ready states of the clients
-	private boolean[] clientReadyStates;
-	// number of current players
-	private int numOfPlayers = 0;
+	// The maximum number of tables hosted by this server
+	private final int maxNumOfTables;
+	// Map for holding the tables by their ids
+	private final ConcurrentHashMap<Integer, CardGameTable> tables = new ConcurrentHashMap<Integer, CardGameTable>();
+	// Map for locating the table of each client
+	private final ConcurrentHashMap<CardGameConnection, CardGameTable> clientTables = new ConcurrentHashMap<CardGameConnection, CardGameTable>();
+	// Set of the tables with at least one empty seat, in order of creation
+	private final LinkedHashSet<CardGameTable> openTables = new LinkedHashSet<CardGameTable>();
+	// Lock guarding openTables, nextTableID and the creation and removal of
+	// tables; a thread holding the lock of a table may take it, not the
+	// other way round
+	private final Object tablesLock = new Object();
+	// the id of the next table to be created
+	private int nextTableID = 0;
 	// the main frame of the server
 	private JFrame frame = null;
 	// text area for displaying server states
 	private JTextArea textArea = null;
 	// a boolean indicating if the server is up
 	private boolean serverUp = false;
+	// the number of event loop threads, or 0 for blocking sockets
+	private int numOfEventLoops = 0;
+	// the factory of the client threads of the blocking sockets, or null for
+	// platform threads
+	private ThreadFactory clientThreadFactory = null;
+	// the maximum number of messages queued for a client
+	private int outboundQueueCapacity = 256;
+	// the policy for a client whose queue is full
+	private OutboundQueue.Policy outboundQueuePolicy = OutboundQueue.Policy.COALESCE;
+	// the counters of the outbound queues
+	private final OutboundQueue.Stats outboundQueueStats = new OutboundQueue.Stats();
+	// the codec of the messages
+	private MessageCodec codec = MessageCodec.create(null, this::createDeck);
+	// the number of moves between two snapshots of a game, or 0 for none
+	private int snapshotInterval = 16;
+	// the time a seat is held for a client whose connection is lost during a
+	// game, in milliseconds, or 0 to free the seat at once
+	private long gracePeriod = 30000;
+	// the tables of the clients by reconnect token
+	private final ConcurrentHashMap<Long, CardGameTable> sessions = new ConcurrentHashMap<Long, CardGameTable>();
+	// the generator of the reconnect tokens
+	private final SecureRandom random = new SecureRandom();
+	// the timer freeing the held seats, created on first use
+	private ScheduledExecutorService graceTimer = null;
 
 	/**
-	 * Creates and returns an instance of the BigTwoServer class.
+	 * Creates and returns an instance of the CardGameServer class hosting a
+	 * single table.
 	 * 
 	 * @param serverName
 	 *            the name of this card game server
@@ -52,17 +97,29 @@ public class CardGameServer {
 	 *            the maximum number of players in a card game
 	 */
 	public CardGameServer(String serverName, int maxNumOfPlayers) {
+		this(serverName, maxNumOfPlayers, 1);
+	}
+
+	/**
+	 * Creates and returns an instance of the CardGameServer class.
+	 * 
+	 * @param serverName
+	 *            the name of this card game server
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players in a card game
+	 * @param maxNumOfTables
+	 *            the maximum number of tables hosted by this server
+	 */
+	public CardGameServer(String serverName, int maxNumOfPlayers,
+			int maxNumOfTables) {
 		this.serverName = serverName;
 		this.maxNumOfPlayers = maxNumOfPlayers;
+		this.maxNumOfTables = maxNumOfTables;
 
-		// creates arrays for holding client sockets, output streams, player
-		// names, and ready states
-		clientSockets = new Socket[maxNumOfPlayers];
-		clientOutputStreams = new ObjectOutputStream[maxNumOfPlayers];
-		clientNames = new String[maxNumOfPlayers];
-		clientReadyStates = new boolean[maxNumOfPlayers];
-
-		buildGUI();
+		// a server without a display logs to the standard output instead
+		if (!GraphicsEnvironment.isHeadless()) {
+			buildGUI();
+		}
 	}
 
 	/**
@@ -84,10 +141,13 @@ public class CardGameServer {
 		// build the menu bar
 		JMenuItem clearMenuItem = new JMenuItem("Clear console");
 		clearMenuItem.addActionListener(new ClearMenuItemListener());
+		JMenuItem queuesMenuItem = new JMenuItem("Show queues");
+		queuesMenuItem.addActionListener(new QueuesMenuItemListener());
 		JMenuItem quitMenuItem = new JMenuItem("Quit");
 		quitMenuItem.addActionListener(new QuitMenuItemListener());
 		JMenu menu = new JMenu("Option");
 		menu.add(clearMenuItem);
+		menu.add(queuesMenuItem);
 		menu.add(quitMenuItem);
 		JMenuBar menuBar = new JMenuBar();
 		menuBar.add(menu);
@@ -97,6 +157,191 @@ public class CardGameServer {
 		frame.setVisible(true);
 	} // buildGUI
 
+	/**
+	 * Sets the number of event loop threads serving the clients. With 0
+	 * (the default), the server uses blocking sockets and a thread per
+	 * client; otherwise it uses a NioTransport.
+	 * 
+	 * @param numOfEventLoops
+	 *            the number of event loop threads, or 0 for blocking sockets
+	 */
+	public void setNumOfEventLoops(int numOfEventLoops) {
+		this.numOfEventLoops = numOfEventLoops;
+	}
+
+	/**
+	 * Returns the codec of the messages exchanged with the clients.
+	 * 
+	 * @return the codec of the messages
+	 */
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Sets the codec of the messages exchanged with the clients, which must
+	 * match the codec of the clients. Must be called before start().
+	 * 
+	 * @param codec
+	 *            the codec of the messages
+	 */
+	public void setCodec(MessageCodec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * Sets the bound of the outbound queue of every new client, and what to
+	 * do when it is reached.
+	 * 
+	 * @param capacity
+	 *            the maximum number of messages queued for a client
+	 * @param policy
+	 *            the policy for a full queue
+	 */
+	public void setOutboundQueue(int capacity, OutboundQueue.Policy policy) {
+		this.outboundQueueCapacity = capacity;
+		this.outboundQueuePolicy = policy;
+	}
+
+	/**
+	 * Sets the number of moves after which every client of a table holding
+	 * the game receives a SNAPSHOT of its state, so that a client which has
+	 * gone astray catches up without asking.
+	 * 
+	 * @param snapshotInterval
+	 *            the number of moves between two snapshots, or 0 to only
+	 *            send snapshots in answer to RESYNC messages
+	 */
+	public void setSnapshotInterval(int snapshotInterval) {
+		this.snapshotInterval = snapshotInterval;
+	}
+
+	/**
+	 * Sets the time a seat is held for a client whose connection is lost
+	 * during a game. The other players keep playing the game, and the client
+	 * can take its seat back on a new connection with its reconnect token
+	 * (see CardGameMessage.RESUME).
+	 * 
+	 * @param gracePeriod
+	 *            the time in milliseconds, or 0 to free the seat at once and
+	 *            end the game
+	 */
+	public void setGracePeriod(long gracePeriod) {
+		this.gracePeriod = gracePeriod;
+	}
+
+	/**
+	 * Returns the timer freeing the held seats, creating it if needed.
+	 * 
+	 * @return the timer
+	 */
+	private synchronized ScheduledExecutorService getGraceTimer() {
+		if (graceTimer == null) {
+			graceTimer = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "grace-timer");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return graceTimer;
+	}
+
+	/**
+	 * Creates the outbound queue of a new client. Called by the transport.
+	 * 
+	 * @return a new outbound queue
+	 */
+	OutboundQueue newOutboundQueue() {
+		return new OutboundQueue(outboundQueueCapacity, outboundQueuePolicy,
+				outboundQueueStats);
+	}
+
+	/**
+	 * Returns the total number of messages waiting to be sent to the clients.
+	 * 
+	 * @return the sum of the depths of the outbound queues
+	 */
+	public int getOutboundQueueDepth() {
+		int depth = 0;
+		for (CardGameConnection connection : clientTables.keySet()) {
+			depth += connection.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the depth of the deepest outbound queue.
+	 * 
+	 * @return the largest number of messages waiting for a single client
+	 */
+	public int getMaxOutboundQueueDepth() {
+		int depth = 0;
+		for (CardGameConnection connection : clientTables.keySet()) {
+			depth = Math.max(depth, connection.getQueueDepth());
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the counters of the messages dropped and the clients
+	 * disconnected by the outbound queues.
+	 * 
+	 * @return the counters of the outbound queues
+	 */
+	public OutboundQueue.Stats getOutboundQueueStats() {
+		return outboundQueueStats;
+	}
+
+	/**
+	 * Runs the client handlers of the blocking sockets on virtual threads, so
+	 * that a client blocked in a read does not hold a platform thread.
+	 * Virtual threads need Java 21; on older runtimes the server keeps using
+	 * platform threads.
+	 * 
+	 * @param useVirtualThreads
+	 *            true for virtual threads, false for platform threads
+	 * @return true if the requested kind of thread is used; false if virtual
+	 *         threads are not supported by the runtime
+	 */
+	public boolean setUseVirtualThreads(boolean useVirtualThreads) {
+		clientThreadFactory = null;
+		if (!useVirtualThreads) {
+			return true;
+		}
+		try {
+			// Thread.ofVirtual().name("client-", 0).factory(), looked up at
+			// run time as the server is built for older runtimes
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class)
+					.invoke(builder, "client-", 0L);
+			clientThreadFactory = (ThreadFactory) builderClass.getMethod(
+					"factory").invoke(builder);
+			return true;
+		} catch (Exception ex) {
+			println("Virtual threads are not supported, uses platform threads instead");
+			if (!silentMode) ex.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a thread for serving a blocking socket.
+	 * 
+	 * @param task
+	 *            the task of the thread
+	 * @return a new thread, not started yet
+	 */
+	private Thread newClientThread(Runnable task) {
+		if (clientThreadFactory != null) {
+			return clientThreadFactory.newThread(task);
+		}
+		return new Thread(task);
+	}
+
 	/**
 	 * Starts the server at the specified port
 	 * 
@@ -106,6 +351,10 @@ public class CardGameServer {
 	public void start(int port) {
 		// start the server
 		try {
+			if (numOfEventLoops > 0) {
+				new NioTransport(this, numOfEventLoops).start(port);
+				return;
+			}
 			// creates a ServerScoket
 			ServerSocket serverSocket = new ServerSocket(port);
 			println("Starts up the server at localhost:"
@@ -114,7 +363,7 @@ public class CardGameServer {
 			while (serverUp) {
 				// waits for clients to connect
 				Socket clientSocket = serverSocket.accept();
-				addConnection(clientSocket);
+				acceptConnection(clientSocket);
 			} // while
 			serverSocket.close();
 		} catch (Exception ex) {
@@ -124,234 +373,796 @@ public class CardGameServer {
 	} // start
 
 	/**
-	 * Parses the incoming message from the specified client.
+	 * Adds a new blocking socket connection to the server
 	 * 
 	 * @param clientSocket
-	 *            the socket connection to the specified client
+	 *            the socket connection to be added to the server
+	 */
+	private void acceptConnection(Socket clientSocket) {
+		try {
+			SocketConnection connection = new SocketConnection(clientSocket);
+			if (addConnection(connection) >= 0) {
+				// creates a thread for receiving messages from this
+				// client, and one for sending messages to it
+				Thread t = newClientThread(new ClientHandler(connection));
+				t.start();
+				Thread w = newClientThread(new ClientWriter(connection));
+				w.start();
+				return;
+			}
+		} catch (Exception ex) {
+			println("Error in establishing a connection with a client at "
+					+ clientSocket.getRemoteSocketAddress());
+			if (!silentMode) ex.printStackTrace();
+			return;
+		}
+
+		// Max. no. of players reached
+		println("Server is full: cannot establish a connection with a client at "
+				+ clientSocket.getRemoteSocketAddress());
+
+		// creates a thread for sending a FULL message to this client, waits
+		// for 1000 milliseconds and closes the socket
+		Thread t = newClientThread(new ClientHandler2(clientSocket));
+		t.start();
+	} // acceptConnection
+
+	/**
+	 * Parses the incoming message from the specified client. Called by the
+	 * transport, which delivers the messages of a connection one at a time.
+	 * 
+	 * @param connection
+	 *            the connection to the specified client
 	 * @param message
 	 *            the message received from the specified client
 	 */
-	private synchronized void parseMessage(Socket clientSocket,
-			CardGameMessage message) {
-		// updates the playerID
-		for (int i = 0; i < maxNumOfPlayers; i++) {
-			if (clientSockets[i] == clientSocket) {
-				message.setPlayerID(i);
-				break;
+	void parseMessage(CardGameConnection connection, CardGameMessage message) {
+		if (!connection.isAdmitted()) {
+			// the first message of a client decides where it is seated: a
+			// RESUME message takes back the seat of its token before the
+			// client is seated anywhere else
+			connection.admit();
+			if (message.getType() == CardGameMessage.RESUME) {
+				if (message.getData() instanceof Long
+						&& resume(connection, (Long) message.getData())) {
+					return;
+				}
+				// the seat has been freed, the client joins as a new player
+				refuseResume(connection);
+				seatNewClient(connection);
+				return;
+			}
+			if (!seatNewClient(connection)) {
+				return;
+			}
+		}
+		if (message.getType() == CardGameMessage.TABLE) {
+			if (message.getData() instanceof Integer) {
+				// moves the client to the requested table
+				changeTable(connection, (Integer) message.getData());
 			}
+			return;
+		}
+		if (message.getType() == CardGameMessage.RESUME) {
+			// a seat is only taken back with the first message of a
+			// connection, so the client joins its current table
+			refuseResume(connection);
+			return;
 		}
 
-		// parses the message based on it type
-		switch (message.getType()) {
-		case CardGameMessage.JOIN:
-			// adds a player to the game
-			addPlayer(clientSocket, (String) message.getData());
-			break;
-		case CardGameMessage.READY:
-			// marks the specified player as ready for a new game
-			setReadyState(clientSocket);
-			break;
-		case CardGameMessage.MOVE:
-			println("Broadcasts a \"MOVE\" message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the MOVE message to all clients
-			broadcastMessage(message);
-			break;
-		case CardGameMessage.MSG:
-			println("Broadcasts a user message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the user message to all clients
-			broadcastUserMessage(clientSocket, (String) message.getData());
-			break;
-		default:
-			println("Wrong message type: " + message.getType());
-			// invalid message
-			break;
+		// locates the table of the client
+		CardGameTable table = clientTables.get(connection);
+		if (table == null) {
+			return;
+		}
+		synchronized (table) {
+			// updates the playerID
+			int playerID = table.indexOf(connection);
+			if (playerID < 0) {
+				return;
+			}
+			message.setPlayerID(playerID);
+
+			// parses the message based on it type
+			switch (message.getType()) {
+			case CardGameMessage.JOIN:
+				if (!(message.getData() instanceof String)) {
+					println("Wrong \"JOIN\" data from "
+							+ connection.getRemoteSocketAddress());
+					break;
+				}
+				// adds a player to the game
+				addPlayer(table, playerID, (String) message.getData());
+				break;
+			case CardGameMessage.READY:
+				// marks the specified player as ready for a new game
+				setReadyState(table, playerID);
+				break;
+			case CardGameMessage.MOVE:
+				if (!(message.getData() == null || message.getData() instanceof int[])) {
+					println("Wrong \"MOVE\" data from "
+							+ connection.getRemoteSocketAddress());
+					break;
+				}
+				if (checkMove(table, playerID, (int[]) message.getData())) {
+					println("Broadcasts a \"MOVE\" message from "
+							+ connection.getRemoteSocketAddress());
+					if (table.getGame() == null) {
+						// broadcast the accepted MOVE message to the table
+						broadcastMessage(table, message);
+					} else {
+						broadcastChange(table, message);
+					}
+				} else {
+					println("Rejects a \"MOVE\" message from "
+							+ connection.getRemoteSocketAddress());
+					// only the sender is told about an illegal move
+					sendMessage(table, playerID, new CardGameMessage(
+							CardGameMessage.ILLEGAL, playerID,
+							message.getData()));
+				}
+				break;
+			case CardGameMessage.RESYNC:
+				if (message.getData() instanceof Integer) {
+					resync(table, playerID, (Integer) message.getData());
+				}
+				break;
+			case CardGameMessage.MSG:
+				if (!(message.getData() instanceof String)) {
+					println("Wrong \"MSG\" data from "
+							+ connection.getRemoteSocketAddress());
+					break;
+				}
+				println("Broadcasts a user message from "
+						+ connection.getRemoteSocketAddress());
+				// broadcast the user message to the table
+				broadcastUserMessage(table, playerID, (String) message.getData());
+				break;
+			default:
+				println("Wrong message type: " + message.getType());
+				// invalid message
+				break;
+			}
 		}
 	} // parseMessage
 
 	/**
-	 * Broadcasts the specified message to all clients.
+	 * Broadcasts the specified message to all clients of a table. The caller
+	 * must hold the lock of the table, so that every client receives the
+	 * messages of the table in the same order.
 	 * 
+	 * @param table
+	 *            the table whose clients receive the message
 	 * @param message
 	 *            the specified message to be broadcast to all clients
 	 */
-	private synchronized void broadcastMessage(CardGameMessage message) {
-		if (numOfPlayers > 0) {
+	private void broadcastMessage(CardGameTable table, CardGameMessage message) {
+		// encodes the message once for all the clients
+		EncodedMessage encoded = encode(message);
+		if (encoded != null) {
 			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] != null && clientOutputStreams[i] != null) {
-					try {
-						clientOutputStreams[i].writeObject(message);
-					} catch (Exception ex) {
-						println("Error in broadcasting a message to the client at "
-								+ clientSockets[i].getRemoteSocketAddress());
-						if (!silentMode) ex.printStackTrace();
-					}
-				}
+				sendMessage(table, i, encoded);
 			}
 		}
 	} // broadcastMessage
 
 	/**
-	 * Adds a new socket connection to the server
+	 * Encodes the specified message with the codec of the server.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to be added to the server
+	 * @param message
+	 *            the message to be encoded
+	 * @return the encoded message, or null if it cannot be encoded
 	 */
-	private synchronized void addConnection(Socket clientSocket) {
-		// adds this connection to the server if the server is not full
-		if (numOfPlayers < maxNumOfPlayers) {
-			// locates the first empty slot for the new connection
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == null) {
-					try {
-						// creates an ObjectOutputStream for this client socket
-						ObjectOutputStream oostream = new ObjectOutputStream(
-								clientSocket.getOutputStream());
-
-						clientSockets[i] = clientSocket;
-						clientOutputStreams[i] = oostream;
-						clientNames[i] = null;
-						clientReadyStates[i] = false;
-						numOfPlayers++;
-						println("Establishes a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-
-						// creates a thread for receiving messages from this
-						// client
-						Thread t = new Thread(new ClientHandler(clientSocket));
-						t.start();
-
-						// sends the player list to the new player
-						oostream.writeObject(new CardGameMessage(
-								CardGameMessage.PLAYER_LIST, i, clientNames));
-					} catch (Exception ex) {
-						println("Error in establishing a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-						if (!silentMode) ex.printStackTrace();
-					}
-					break;
-				}
-			} // for
-		} else {
-			// Max. no. of players reached
-			println("Server is full: cannot establish a connection with a client at "
-					+ clientSocket.getRemoteSocketAddress());
+	private EncodedMessage encode(CardGameMessage message) {
+		try {
+			return EncodedMessage.encode(codec, message);
+		} catch (Exception ex) {
+			println("Error in encoding a message of type " + message.getType());
+			if (!silentMode) ex.printStackTrace();
+			return null;
+		}
+	}
 
-			// creates a thread for sending a FULL message to this client, waits
-			// for 1000 milliseconds and closes the socket
-			Thread t = new Thread(new ClientHandler2(clientSocket));
-			t.start();
+	/**
+	 * Sends the specified message to a single client. The message is only
+	 * queued by the connection, so a slow client does not delay the caller.
+	 * The caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the client
+	 * @param playerID
+	 *            the playerID of the client
+	 * @param message
+	 *            the specified message to be sent to the client
+	 */
+	private void sendMessage(CardGameTable table, int playerID,
+			CardGameMessage message) {
+		EncodedMessage encoded = encode(message);
+		if (encoded != null) {
+			sendMessage(table, playerID, encoded);
 		}
+	}
 
-	} // addConnection
+	/**
+	 * Sends the specified encoded message to a single client. The caller
+	 * must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the client
+	 * @param playerID
+	 *            the playerID of the client
+	 * @param message
+	 *            the encoded message to be sent to the client
+	 */
+	private void sendMessage(CardGameTable table, int playerID,
+			EncodedMessage message) {
+		if (playerID >= 0 && playerID < maxNumOfPlayers
+				&& table.getConnection(playerID) != null) {
+			try {
+				table.getConnection(playerID).sendMessage(message);
+			} catch (Exception ex) {
+				println("Error in sending a message to the client at "
+						+ table.getConnection(playerID).getRemoteSocketAddress());
+				if (!silentMode) ex.printStackTrace();
+			}
+		}
+	} // sendMessage
 
 	/**
-	 * Removes a connection from the server (possibly due to connection loss).
+	 * Returns the first table with an empty seat, creating a new table if
+	 * needed.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection being removed from the server
+	 * @return a table with an empty seat, or null if the server is full
 	 */
-	private synchronized void removeConnection(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String name = clientNames[i];
+	private CardGameTable findOpenTable() {
+		synchronized (tablesLock) {
+			Iterator<CardGameTable> it = openTables.iterator();
+			if (it.hasNext()) {
+				return it.next();
+			}
+			return createTable();
+		}
+	}
 
-					clientSockets[i] = null;
-					clientOutputStreams[i] = null;
-					clientNames[i] = null;
-					clientReadyStates[i] = false;
-					numOfPlayers--;
+	/**
+	 * Creates a new table with the next unused id. The caller must hold
+	 * tablesLock.
+	 * 
+	 * @return the new table, or null if the server hosts the maximum number
+	 *         of tables already
+	 */
+	private CardGameTable createTable() {
+		while (tables.containsKey(nextTableID)) {
+			nextTableID = (nextTableID + 1) & Integer.MAX_VALUE;
+		}
+		return getTable(nextTableID, true);
+	}
 
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") leaves the game.");
+	/**
+	 * Returns the table with the specified id.
+	 * 
+	 * @param tableID
+	 *            the id of the table
+	 * @param create
+	 *            whether a missing table is created
+	 * @return the table, or null if it does not exist and cannot be created
+	 */
+	private CardGameTable getTable(int tableID, boolean create) {
+		CardGameTable table = tables.get(tableID);
+		if (table != null || !create) {
+			return table;
+		}
+		synchronized (tablesLock) {
+			table = tables.get(tableID);
+			if (table == null && tableID >= 0 && tables.size() < maxNumOfTables) {
+				table = new CardGameTable(tableID, maxNumOfPlayers);
+				table.setGame(createGame());
+				tables.put(tableID, table);
+				openTables.add(table);
+				println("Opens table " + tableID);
+			}
+			return table;
+		}
+	}
 
-					String remoteAddress = clientSocket
-							.getRemoteSocketAddress().toString();
+	/**
+	 * Adds a new connection to the server. The client is not seated yet: its
+	 * first message decides where (see parseMessage). Called by the
+	 * transport, which rejects the connection with a FULL message if this
+	 * method returns -1.
+	 * 
+	 * @param connection
+	 *            the connection to be added to the server
+	 * @return 0 if the connection is accepted, or -1 if the server is full
+	 */
+	int addConnection(CardGameConnection connection) {
+		// a full server still accepts the clients which may hold a
+		// reconnect token
+		synchronized (tablesLock) {
+			if (openTables.isEmpty() && tables.size() >= maxNumOfTables
+					&& sessions.isEmpty()) {
+				return -1;
+			}
+		}
+		println("Establishes a connection with a client at "
+				+ connection.getRemoteSocketAddress());
+		return 0;
+	} // addConnection
 
-					// broadcasts a message about the leaving of this player
-					broadcastMessage(new CardGameMessage(CardGameMessage.QUIT,
-							i, remoteAddress));
-					break;
+	/**
+	 * Seats a new client at a table with an empty seat and sends it the
+	 * player list of its table. If the server is full, the client is sent a
+	 * FULL message and its connection is closed.
+	 * 
+	 * @param connection
+	 *            the connection to the client
+	 * @return true if the client is seated; false if the server is full
+	 */
+	private boolean seatNewClient(CardGameConnection connection) {
+		CardGameTable table;
+		while ((table = findOpenTable()) != null) {
+			synchronized (table) {
+				int i = seatClient(table, connection);
+				if (i < 0) {
+					// the table was filled or closed in the meantime
+					continue;
 				}
+				println("Seats the client at "
+						+ connection.getRemoteSocketAddress() + " at table "
+						+ table.getTableID());
+
+				// sends the player list to the new player
+				sendMessage(table, i, new CardGameMessage(
+						CardGameMessage.PLAYER_LIST, i, table.getNames()));
+				return true;
 			}
 		}
-	} // removeConnection
+		println("Server is full: cannot seat the client at "
+				+ connection.getRemoteSocketAddress());
+		try {
+			connection.sendMessage(EncodedMessage.encode(codec,
+					new CardGameMessage(CardGameMessage.FULL, -1, null)));
+		} catch (Exception ex) {
+			println("Error in sending a FULL message to the client at "
+					+ connection.getRemoteSocketAddress());
+			if (!silentMode) ex.printStackTrace();
+		}
+		connection.close();
+		return false;
+	}
 
 	/**
-	 * adds a player to the game.
+	 * Seats a client at the specified table. The caller must hold the lock
+	 * of the table.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who is joining the game
-	 * @param name
-	 *            the name of the player who is joining the game
+	 * @param table
+	 *            the table
+	 * @param connection
+	 *            the connection to the client
+	 * @return the playerID of the client at the table, or -1 if the table is
+	 *         full or closed
 	 */
-	private synchronized void addPlayer(Socket clientSocket, String name) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					// updates the name of the new player
-					clientNames[i] = name;
+	private int seatClient(CardGameTable table, CardGameConnection connection) {
+		if (table.isClosed()) {
+			return -1;
+		}
+		int i = table.addClient(connection);
+		if (i >= 0) {
+			clientTables.put(connection, table);
+			if (table.isFull()) {
+				synchronized (tablesLock) {
+					openTables.remove(table);
+				}
+			}
+		}
+		return i;
+	}
 
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") joins the game.");
+	/**
+	 * Frees the seat of a client, closing its table if nobody is left. The
+	 * caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the client
+	 * @param connection
+	 *            the connection to the client
+	 * @return the playerID the client had at the table, or -1 if it was not
+	 *         seated there
+	 */
+	private int unseatClient(CardGameTable table, CardGameConnection connection) {
+		int i = table.indexOf(connection);
+		if (i >= 0) {
+			freeSeat(table, i);
+			// keeps the entry if the client has been seated at another table
+			clientTables.remove(connection, table);
+		}
+		return i;
+	}
 
-					// broadcasts a message about this player joining the game
-					broadcastMessage(new CardGameMessage(CardGameMessage.JOIN,
-							i, name));
-					break;
+	/**
+	 * Frees the specified seat, closing its table if nobody is left. The
+	 * caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table
+	 * @param playerID
+	 *            the seat to be freed
+	 */
+	private void freeSeat(CardGameTable table, int playerID) {
+		if (table.getToken(playerID) != 0L) {
+			sessions.remove(table.getToken(playerID), table);
+		}
+		table.removeClient(playerID);
+		synchronized (tablesLock) {
+			if (table.getNumOfPlayers() == 0) {
+				table.close();
+				tables.remove(table.getTableID(), table);
+				openTables.remove(table);
+				println("Closes table " + table.getTableID());
+			} else {
+				openTables.add(table);
+			}
+		}
+	}
+
+	/**
+	 * Removes a connection from the server (possibly due to connection loss).
+	 * Called by the transport.
+	 * 
+	 * @param connection
+	 *            the connection being removed from the server
+	 */
+	void removeConnection(CardGameConnection connection) {
+		CardGameTable table = clientTables.get(connection);
+		if (table != null) {
+			synchronized (table) {
+				if (!holdSeat(table, connection)) {
+					leaveTable(table, connection);
 				}
 			}
 		}
-	} // addPlayer
+	} // removeConnection
 
 	/**
-	 * Marks the specified player as ready for a new game.
+	 * Holds the seat of a client whose connection is lost during a game, so
+	 * that the other players can go on, and frees it after the grace period
+	 * unless the client has resumed its game. The caller must hold the lock
+	 * of the table.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who becomes ready for a
-	 *            new game
+	 * @param table
+	 *            the table of the client
+	 * @param connection
+	 *            the lost connection
+	 * @return true if the seat is held; false if the client has to leave
 	 */
-	private synchronized void setReadyState(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					clientReadyStates[i] = true;
-					println(clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress()
-							+ " ) is ready for the next game.");
-					broadcastMessage(new CardGameMessage(CardGameMessage.READY,
-							i, null));
-					break;
+	private boolean holdSeat(final CardGameTable table,
+			CardGameConnection connection) {
+		final int i = table.indexOf(connection);
+		if (i < 0 || gracePeriod <= 0 || !table.isInGame()
+				|| table.getToken(i) == 0L) {
+			return false;
+		}
+		final long token = table.getToken(i);
+		final String remoteAddress = connection.getRemoteSocketAddress()
+				.toString();
+		table.holdClient(i);
+		clientTables.remove(connection, table);
+		println(table.getName(i) + " (" + remoteAddress
+				+ ") loses the connection, the seat is held for "
+				+ gracePeriod + " ms.");
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.MSG, i,
+				table.getName(i) + " has lost the connection, waiting for "
+						+ (gracePeriod + 999) / 1000 + " seconds."));
+		getGraceTimer().schedule(new Runnable() {
+			public void run() {
+				synchronized (table) {
+					expireSeat(table, i, token, remoteAddress);
 				}
 			}
+		}, gracePeriod, TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+	/**
+	 * Frees a held seat at the end of its grace period, unless its client
+	 * has resumed its game (and so received a new token), and tells the other players that the client has
+	 * left. The caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the seat
+	 * @param playerID
+	 *            the held seat
+	 * @param token
+	 *            the reconnect token of the client
+	 * @param remoteAddress
+	 *            the address of the lost connection
+	 */
+	private void expireSeat(CardGameTable table, int playerID, long token,
+			String remoteAddress) {
+		if (!table.isHeld(playerID) || table.getToken(playerID) != token) {
+			return;
 		}
+		println(table.getName(playerID) + " (" + remoteAddress
+				+ ") has not come back, leaves the game.");
+		freeSeat(table, playerID);
+		table.endGame();
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.QUIT,
+				playerID, remoteAddress));
+	}
 
-		// checks if all players are ready
-		if (numOfPlayers == maxNumOfPlayers) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientReadyStates[i] == false) {
-					// returns if any of the players is not ready
-					return;
+	/**
+	 * Seats a new client back at the seat of its reconnect token, and sends
+	 * it the player list and a snapshot of the game. If the previous
+	 * connection of the client has not been found lost yet, it is closed.
+	 * 
+	 * @param connection
+	 *            the new connection to the client, which is not seated yet
+	 * @param token
+	 *            the reconnect token of the client
+	 * @return true if the client has taken back its seat; false if the seat
+	 *         has been freed
+	 */
+	private boolean resume(CardGameConnection connection, long token) {
+		CardGameTable target = sessions.get(token);
+		int i = -1;
+		if (target != null) {
+			synchronized (target) {
+				i = target.indexOfToken(token);
+				if (i >= 0) {
+					CardGameConnection previous = target.getConnection(i);
+					if (previous != null) {
+						// the client has reconnected before its previous
+						// connection timed out
+						target.holdClient(i);
+						clientTables.remove(previous, target);
+						previous.close();
+					}
+					target.resumeClient(i, connection);
+					clientTables.put(connection, target);
+					println(target.getName(i) + " ("
+							+ connection.getRemoteSocketAddress()
+							+ ") resumes the game at table "
+							+ target.getTableID());
+
+					// a snapshot follows unless the game has been abandoned
+					boolean snapshot = target.getSequence() > 0
+							&& (target.isInGame() || target.getGame().endOfGame());
+					CardGameMessage resume = new CardGameMessage(
+							CardGameMessage.RESUME, i, target.getNames());
+					resume.setSequence(snapshot ? target.getSequence() : 0);
+					sendMessage(target, i, resume);
+					if (snapshot) {
+						sendMessage(target, i, createSnapshotMessage(target, i));
+					}
+					// a used token is replaced, which also disarms the timer
+					// of the seat
+					issueToken(target, i);
+					broadcastMessage(target, new CardGameMessage(
+							CardGameMessage.MSG, i, target.getName(i)
+									+ " is back."));
 				}
 			}
+		}
+		return i >= 0;
+	}
 
-			// resets the ready states of all the players for the next game
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				clientReadyStates[i] = false;
+	/**
+	 * Tells a client that its game cannot be resumed, so that it joins its
+	 * table as a new player.
+	 * 
+	 * @param connection
+	 *            the connection to the client
+	 */
+	private void refuseResume(CardGameConnection connection) {
+		try {
+			connection.sendMessage(EncodedMessage.encode(codec,
+					new CardGameMessage(CardGameMessage.RESUME, -1, null)));
+		} catch (Exception ex) {
+			println("Error in resuming the game of the client at "
+					+ connection.getRemoteSocketAddress());
+			if (!silentMode) ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Removes a client from its table and tells the other players. The
+	 * caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the client
+	 * @param connection
+	 *            the connection to the client
+	 */
+	private void leaveTable(CardGameTable table, CardGameConnection connection) {
+		int i = table.indexOf(connection);
+		if (i >= 0) {
+			String name = table.getName(i);
+			unseatClient(table, connection);
+			// the other clients abandon the game
+			table.endGame();
+
+			println(name + " (" + connection.getRemoteSocketAddress()
+					+ ") leaves the game.");
+
+			String remoteAddress = connection.getRemoteSocketAddress()
+					.toString();
+
+			// broadcasts a message about the leaving of this player
+			broadcastMessage(table, new CardGameMessage(CardGameMessage.QUIT,
+					i, remoteAddress));
+		}
+	}
+
+	/**
+	 * Moves a client to the table with the specified id, creating the table
+	 * if it does not exist. The client receives the player list of its new
+	 * table, or a FULL message if the table has no empty seat (in which case
+	 * it stays at its current table).
+	 * 
+	 * @param connection
+	 *            the connection to the client
+	 * @param tableID
+	 *            the id of the requested table
+	 */
+	private void changeTable(CardGameConnection connection, int tableID) {
+		CardGameTable table = clientTables.get(connection);
+		if (table == null || table.getTableID() == tableID) {
+			return;
+		}
+		// takes the new seat first, so that the client always has a table
+		CardGameTable target;
+		int i = -1;
+		while (i < 0 && (target = getTable(tableID, true)) != null) {
+			synchronized (target) {
+				i = seatClient(target, connection);
+				if (i >= 0) {
+					println("Moves the client at "
+							+ connection.getRemoteSocketAddress()
+							+ " to table " + tableID);
+					sendMessage(target, i, new CardGameMessage(
+							CardGameMessage.PLAYER_LIST, i, target.getNames()));
+				} else if (!target.isClosed()) {
+					break;
+				}
 			}
+		}
+		if (i < 0) {
+			try {
+				connection.sendMessage(EncodedMessage.encode(codec,
+						new CardGameMessage(CardGameMessage.FULL, -1, null)));
+			} catch (Exception ex) {
+				println("Error in moving the client at "
+						+ connection.getRemoteSocketAddress() + " to table "
+						+ tableID);
+				if (!silentMode) ex.printStackTrace();
+			}
+			return;
+		}
+		synchronized (table) {
+			leaveTable(table, connection);
+		}
+	}
+
+	/**
+	 * adds a player to the game. The caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player who is joining the game
+	 * @param name
+	 *            the name of the player who is joining the game
+	 */
+	private void addPlayer(CardGameTable table, int playerID, String name) {
+		// updates the name of the new player
+		table.setName(playerID, name);
+
+		println(name + " ("
+				+ table.getConnection(playerID).getRemoteSocketAddress()
+				+ ") joins the game.");
+
+		// broadcasts a message about this player joining the game
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.JOIN,
+				playerID, name));
+
+		if (table.getGame() != null && gracePeriod > 0
+				&& table.getToken(playerID) == 0L) {
+			// gives the player a token to resume its game after a
+			// connection loss
+			issueToken(table, playerID);
+		}
+	} // addPlayer
+
+	/**
+	 * Gives the specified player a new reconnect token, replacing its
+	 * previous one, and sends it to the player. The caller must hold the
+	 * lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player
+	 */
+	private void issueToken(CardGameTable table, int playerID) {
+		long token;
+		do {
+			token = random.nextLong();
+		} while (token == 0L || sessions.putIfAbsent(token, table) != null);
+		if (table.getToken(playerID) != 0L) {
+			sessions.remove(table.getToken(playerID), table);
+		}
+		table.setToken(playerID, token);
+		sendMessage(table, playerID, new CardGameMessage(
+				CardGameMessage.SESSION, playerID, Long.valueOf(token)));
+	}
+
+	/**
+	 * Marks the specified player as ready for a new game. The caller must
+	 * hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player who becomes ready for a new game
+	 */
+	private void setReadyState(CardGameTable table, int playerID) {
+		table.setReady(playerID);
+		println(table.getName(playerID) + " ("
+				+ table.getConnection(playerID).getRemoteSocketAddress()
+				+ " ) is ready for the next game.");
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.READY,
+				playerID, null));
 
+		// checks if all players are ready
+		if (table.checkAllReady()) {
 			// creates a new deck, shuffles the deck, and starts a new game
 			Deck deck = createDeck();
 			deck.shuffle();
-			println("All players are ready. Game starts.");
-			broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
-					deck));
+			startGame(table, deck);
+			println("All players are ready. Game starts at table "
+					+ table.getTableID() + ".");
+			CardGame game = table.getGame();
+			if (game == null) {
+				// the clients deal the cards themselves
+				broadcastMessage(table, new CardGameMessage(CardGameMessage.START,
+						-1, deck));
+			} else {
+				// every client only receives its own cards
+				int sequence = table.startSequence();
+				for (int i = 0; i < maxNumOfPlayers; i++) {
+					CardGameMessage start = createStartMessage(game, i);
+					start.setSequence(sequence);
+					sendMessage(table, i, start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the START message telling the specified player about the cards
+	 * dealt by the game of its table. In this message, playerID specifies the
+	 * player who moves first, and data is an array of int holding the number
+	 * of cards of every player followed by the ordinals (see
+	 * Card.getOrdinal()) of the cards of the specified player.
+	 * 
+	 * @param game
+	 *            the game which has dealt the cards
+	 * @param playerID
+	 *            the playerID of the receiver
+	 * @return the START message for the specified player
+	 */
+	private CardGameMessage createStartMessage(CardGame game, int playerID) {
+		ArrayList<CardGamePlayer> players = game.getPlayerList();
+		CardList cards = players.get(playerID).getCardsInHand();
+		int[] data = new int[players.size() + cards.size()];
+		for (int i = 0; i < players.size(); i++) {
+			data[i] = players.get(i).getNumOfCards();
 		}
+		for (int i = 0; i < cards.size(); i++) {
+			data[players.size() + i] = cards.getCard(i).getOrdinal();
+		}
+		return new CardGameMessage(CardGameMessage.START,
+				game.getCurrentPlayerIdx(), data);
 	}
 
 	/**
@@ -364,60 +1175,343 @@ public class CardGameServer {
 		return new Deck();
 	}
 
-	private synchronized void broadcastUserMessage(Socket clientSocket,
-			String msg) {
-		if (numOfPlayers > 0) {
-			// locates the client in the array
+	/**
+	 * Creates the authoritative game of a new table. Overrides this method to
+	 * validate moves on the server; returns null by default.
+	 * 
+	 * @return a new game, or null if the server only relays the moves
+	 */
+	public CardGame createGame() {
+		return null;
+	}
+
+	/**
+	 * Starts the game of the specified table with the specified deck, right
+	 * before the deck is sent to the clients. Called with the lock of the
+	 * table held.
+	 * 
+	 * @param table
+	 *            the table starting a new game
+	 * @param deck
+	 *            the shuffled deck of the new game
+	 */
+	protected void startGame(CardGameTable table, Deck deck) {
+		if (table.getGame() != null) {
+			table.getGame().start(deck);
+		}
+	}
+
+	/**
+	 * Checks the move made by the specified player against the game of the
+	 * table, and applies it if it is legal. Only legal moves are broadcast to
+	 * the clients. Overrides this method together with createGame(); accepts
+	 * every move by default. Called with the lock of the table held.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 * @return true if the move is legal; false otherwise
+	 */
+	protected boolean checkMove(CardGameTable table, int playerID,
+			int[] cardIdx) {
+		return true;
+	}
+
+	/**
+	 * Broadcasts a move accepted by the game of the table as the next change
+	 * of state, and sends the clients a snapshot of the game every
+	 * snapshotInterval moves. The caller must hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param message
+	 *            the MOVE message accepted
+	 */
+	private void broadcastChange(CardGameTable table, CardGameMessage message) {
+		if (message.getData() != null) {
+			// the other clients do not know the cards of the player, so the
+			// move carries the cards played
+			message.setData(Long.valueOf(getLastHandBits(table.getGame())));
+		}
+		message.setSequence(table.getSequence() + 1);
+		EncodedMessage encoded = encode(message);
+		if (encoded == null) {
+			return;
+		}
+		table.addChange(encoded);
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			sendMessage(table, i, encoded);
+		}
+		if (table.getGame().endOfGame()) {
+			table.endGame();
+		}
+		if (snapshotInterval > 0
+				&& table.getNumOfChanges() % snapshotInterval == 0) {
 			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String longMsg = clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress() + "): "
-							+ msg;
-					broadcastMessage(new CardGameMessage(CardGameMessage.MSG,
-							i, longMsg));
-					break;
-				}
+				sendMessage(table, i, createSnapshotMessage(table, i));
 			}
 		}
 	}
 
+	/**
+	 * Sends the specified player the changes of state it missed: the moves
+	 * made since the specified sequence number if they belong to the current
+	 * game, or a snapshot of the game otherwise. The caller must hold the
+	 * lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the player
+	 * @param sequence
+	 *            the sequence number of the last change applied by the
+	 *            player
+	 */
+	private void resync(CardGameTable table, int playerID, int sequence) {
+		if (table.getGame() == null || table.getSequence() == 0) {
+			// no game has been dealt by the server
+			return;
+		}
+		List<EncodedMessage> changes = table.getChangesSince(sequence);
+		if (changes == null) {
+			println("Sends a snapshot to " + table.getName(playerID));
+			sendMessage(table, playerID, createSnapshotMessage(table, playerID));
+		} else {
+			println("Resends " + changes.size() + " moves to "
+					+ table.getName(playerID));
+			for (int i = 0; i < changes.size(); i++) {
+				sendMessage(table, playerID, changes.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Creates the SNAPSHOT message telling the specified player about the
+	 * state of the game of its table: the number of cards of every player,
+	 * the last hand on the table and the cards of the player.
+	 * 
+	 * @param table
+	 *            the table of the player
+	 * @param playerID
+	 *            the playerID of the receiver
+	 * @return the SNAPSHOT message for the specified player
+	 */
+	private CardGameMessage createSnapshotMessage(CardGameTable table,
+			int playerID) {
+		CardGame game = table.getGame();
+		ArrayList<CardGamePlayer> players = game.getPlayerList();
+		ArrayList<Hand> hands = game.getHandsOnTable();
+		Hand lastHand = hands.isEmpty() ? null : hands.get(hands.size() - 1);
+		int numOfLastCards = (lastHand == null) ? 0 : lastHand.size();
+		CardList cards = players.get(playerID).getCardsInHand();
+
+		int[] data = new int[players.size() + 2 + numOfLastCards + cards.size()];
+		int pos = 0;
+		for (int i = 0; i < players.size(); i++) {
+			data[pos++] = players.get(i).getNumOfCards();
+		}
+		data[pos++] = (lastHand == null) ? -1 : players.indexOf(lastHand.getPlayer());
+		data[pos++] = numOfLastCards;
+		for (int i = 0; i < numOfLastCards; i++) {
+			data[pos++] = lastHand.getCard(i).getOrdinal();
+		}
+		for (int i = 0; i < cards.size(); i++) {
+			data[pos++] = cards.getCard(i).getOrdinal();
+		}
+		CardGameMessage snapshot = new CardGameMessage(CardGameMessage.SNAPSHOT,
+				game.getCurrentPlayerIdx(), data);
+		snapshot.setSequence(table.getSequence());
+		return snapshot;
+	}
+
+	/**
+	 * Returns the bits (see CardSet) of the cards of the last hand played in
+	 * the specified game.
+	 * 
+	 * @param game
+	 *            the game
+	 * @return the bits of the cards of the last hand, or 0 if no hand has
+	 *         been played
+	 */
+	private static long getLastHandBits(CardGame game) {
+		ArrayList<Hand> hands = game.getHandsOnTable();
+		if (hands.isEmpty()) {
+			return 0L;
+		}
+		return hands.get(hands.size() - 1).getCardSet().toLong();
+	}
+
+	/**
+	 * Broadcasts a user message to the table of its sender. The caller must
+	 * hold the lock of the table.
+	 * 
+	 * @param table
+	 *            the table of the sender
+	 * @param playerID
+	 *            the playerID of the sender
+	 * @param msg
+	 *            the user message
+	 */
+	private void broadcastUserMessage(CardGameTable table, int playerID,
+			String msg) {
+		String longMsg = table.getName(playerID) + " ("
+				+ table.getConnection(playerID).getRemoteSocketAddress()
+				+ "): " + msg;
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.MSG,
+				playerID, longMsg));
+	}
+
 	/**
 	 * Prints the specified message to the text area.
 	 * 
 	 * @param msg
 	 */
-	private void println(String msg) {
-		textArea.append(msg + "\n");
-		textArea.setCaretPosition(textArea.getDocument().getLength());
+	void println(final String msg) {
+		if (textArea == null) {
+			System.out.println(msg);
+			return;
+		}
+		// messages come from many threads, the text area is updated on the
+		// event dispatch thread
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				textArea.append(msg + "\n");
+				textArea.setCaretPosition(textArea.getDocument().getLength());
+			}
+		});
 	}
 
 	/**
-	 * This inner class is used for receiving incoming messages from a client
+	 * This inner class is used to model a blocking socket connection to a
+	 * client. Outgoing messages are queued and written by a ClientWriter
+	 * thread of their own, so a client that stops reading only stalls itself.
 	 * 
 	 * @author Kenneth Wong
 	 *
 	 */
-	private class ClientHandler implements Runnable {
-		private Socket clientSocket; // socket connection to the client
-		private ObjectInputStream oistream; // ObjectInputStream of the client
+	private class SocketConnection extends CardGameConnection {
+		private final Socket clientSocket; // socket connection to the client
+		private final FramedMessageStream stream; // framed stream of the client
+		// messages waiting to be written by the ClientWriter
+		private final OutboundQueue outbound = newOutboundQueue();
 
 		/**
-		 * Creates and returns an instance of the ClientHandler class.
+		 * Creates and returns an instance of the SocketConnection class.
 		 * 
 		 * @param clientSocket
 		 *            the socket connection to the client
+		 * @throws IOException
+		 *             if the socket is closed
 		 */
-		public ClientHandler(Socket clientSocket) {
+		public SocketConnection(Socket clientSocket) throws IOException {
 			this.clientSocket = clientSocket;
+			this.stream = new FramedMessageStream(clientSocket, codec);
+		} // constructor
+
+		public SocketAddress getRemoteSocketAddress() {
+			return clientSocket.getRemoteSocketAddress();
+		}
+
+		public void sendMessage(EncodedMessage message) throws IOException {
+			if (outbound.isClosed()) {
+				throw new IOException("Connection closed");
+			}
+			if (!outbound.offer(message)) {
+				// the ClientHandler sees the socket closing and removes the
+				// connection
+				closeSocket();
+				throw new IOException("Outbound queue full, disconnects the client");
+			}
+		}
+
+		public void close() {
+			// the ClientWriter closes the socket once the queued messages are
+			// written
+			outbound.close();
+		}
+
+		public int getQueueDepth() {
+			return outbound.size();
+		}
+
+		/**
+		 * Closes the socket right away.
+		 */
+		private void closeSocket() {
 			try {
-				// creates an ObjectInputStream and chains it to the InputStream
-				// of the client socket
-				oistream = new ObjectInputStream(clientSocket.getInputStream());
+				clientSocket.close();
 			} catch (Exception ex) {
-				println("Error in creating an ObjectInputStream for the client at "
+				println("Error in closing the client socket at "
 						+ clientSocket.getRemoteSocketAddress());
 				if (!silentMode) ex.printStackTrace();
 			}
+		}
+	} // SocketConnection
+
+	/**
+	 * This inner class is used for sending the queued messages to a client
+	 * 
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class ClientWriter implements Runnable {
+		private SocketConnection connection; // connection to the client
+
+		/**
+		 * Creates and returns an instance of the ClientWriter class.
+		 * 
+		 * @param connection
+		 *            the connection to the client
+		 */
+		public ClientWriter(SocketConnection connection) {
+			this.connection = connection;
+		} // constructor
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			try {
+				EncodedMessage message;
+				while ((message = connection.outbound.take()) != null) {
+					connection.stream.writeFrame(message.getFrame());
+					// writes the messages queued meanwhile before flushing
+					if (connection.outbound.isEmpty()) {
+						connection.stream.flush();
+					}
+				}
+				connection.stream.flush();
+			} catch (Exception ex) {
+				println("Error in sending a message to the client at "
+						+ connection.getRemoteSocketAddress());
+				if (!silentMode) ex.printStackTrace();
+			}
+			// the ClientHandler of the connection sees the socket closing and
+			// removes the connection
+			connection.outbound.clear();
+			connection.closeSocket();
+		} // run
+	} // ClientWriter
+
+	/**
+	 * This inner class is used for receiving incoming messages from a client
+	 * 
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class ClientHandler implements Runnable {
+		private SocketConnection connection; // connection to the client
+
+		/**
+		 * Creates and returns an instance of the ClientHandler class.
+		 * 
+		 * @param connection
+		 *            the connection to the client
+		 */
+		public ClientHandler(SocketConnection connection) {
+			this.connection = connection;
 		} // constructor
 
 		// implementation of method from the Runnable interface
@@ -425,17 +1519,18 @@ public class CardGameServer {
 			CardGameMessage message;
 			try {
 				// waits for messages from the client
-				while ((message = (CardGameMessage) oistream.readObject()) != null) {
+				while ((message = (CardGameMessage) connection.stream.readMessage()) != null) {
 					println("Message received from "
-							+ clientSocket.getRemoteSocketAddress());
-					parseMessage(clientSocket, message);
+							+ connection.getRemoteSocketAddress());
+					parseMessage(connection, message);
 				} // close while
 			} catch (Exception ex) {
 				println("Error in receiving messages from the client at "
-						+ clientSocket.getRemoteSocketAddress());
+						+ connection.getRemoteSocketAddress());
 				if (!silentMode) ex.printStackTrace();
 				// possible connection loss, removes the connection
-				removeConnection(clientSocket);
+				removeConnection(connection);
+				connection.close();
 			}
 		} // run
 	} // ClientHandler
@@ -456,15 +1551,12 @@ public class CardGameServer {
 		// implementation of method from the Runnable interface
 		public void run() {
 			try {
-				// creates an ObjectOutputStream and chains it to the
-				// OutputStream
-				// of the client socket
-				ObjectOutputStream oostream = new ObjectOutputStream(
-						clientSocket.getOutputStream());
 				// sends a FULL message to the client
-				oostream.writeObject(new CardGameMessage(CardGameMessage.FULL,
+				FramedMessageStream stream = new FramedMessageStream(null,
+						clientSocket.getOutputStream(), codec);
+				stream.writeMessage(new CardGameMessage(CardGameMessage.FULL,
 						-1, null));
-				oostream.flush();
+				stream.flush();
 			} catch (Exception ex) {
 				println("Error in sending a FULL message to the client at "
 						+ clientSocket.getRemoteSocketAddress());
@@ -503,6 +1595,22 @@ public class CardGameServer {
 		}
 	} // ClearMenuItemListener
 
+	/**
+	 * This inner class is used for handling the Show queues menu
+	 * 
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class QueuesMenuItemListener implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			println("Clients: " + clientTables.size() + ", queued messages: "
+					+ getOutboundQueueDepth() + " (max "
+					+ getMaxOutboundQueueDepth() + "), dropped: "
+					+ outboundQueueStats.getNumOfDropped() + ", evicted: "
+					+ outboundQueueStats.getNumOfEvicted());
+		}
+	} // QueuesMenuItemListener
+
 	/**
 	 * This inner class is used for handling the Quit menu
 	 * 
@@ -0,0 +1,420 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to model a table of a card game server. Each table has
+ * its own seats (the connections, names and ready states of its clients) and its own game, so that one server can host many
+ * independent games. A table is not thread-safe: the server locks the table
+ * while it uses or changes its state.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class CardGameTable {
+	// The id of this table
+	private final int tableID;
+	// The maximum number of players at this table
+	private final int maxNumOfPlayers;
+	// Array for holding connections to the clients
+	private final CardGameConnection[] clientConnections;
+	// Array for holding player names of the clients
+	private final String[] clientNames;
+	// Array for holding ready states of the clients
+	private final boolean[] clientReadyStates;
+	// Array for holding the reconnect tokens of the clients (0 for none)
+	private final long[] clientTokens;
+	// Array for holding whether a seat is kept for a disconnected client
+	private final boolean[] clientHeld;
+	// number of current players
+	private int numOfPlayers = 0;
+	// the authoritative game of this table, or null if the server does not
+	// keep one
+	private CardGame game;
+	// whether the server has closed this table
+	private boolean closed = false;
+	// whether a game dealt by the server is being played
+	private boolean inGame = false;
+	// the sequence number of the last change of state of the game
+	private int sequence = 0;
+	// the sequence number of the START of the current game
+	private int gameSequence = 0;
+	// the MOVE messages of the current game, in sequence
+	private final ArrayList<EncodedMessage> changes = new ArrayList<EncodedMessage>();
+
+	/**
+	 * Creates and returns an instance of the CardGameTable class.
+	 *
+	 * @param tableID
+	 *            the id of this table
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players at this table
+	 */
+	public CardGameTable(int tableID, int maxNumOfPlayers) {
+		this.tableID = tableID;
+		this.maxNumOfPlayers = maxNumOfPlayers;
+		clientConnections = new CardGameConnection[maxNumOfPlayers];
+		clientNames = new String[maxNumOfPlayers];
+		clientReadyStates = new boolean[maxNumOfPlayers];
+		clientTokens = new long[maxNumOfPlayers];
+		clientHeld = new boolean[maxNumOfPlayers];
+	}
+
+	/**
+	 * Returns the id of this table.
+	 *
+	 * @return the id of this table
+	 */
+	public int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the maximum number of players at this table.
+	 *
+	 * @return the maximum number of players at this table
+	 */
+	public int getMaxNumOfPlayers() {
+		return maxNumOfPlayers;
+	}
+
+	/**
+	 * Returns the number of clients seated at this table.
+	 *
+	 * @return the number of clients seated at this table
+	 */
+	public int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	/**
+	 * Returns true if all the seats of this table are taken.
+	 *
+	 * @return true if this table is full; false otherwise
+	 */
+	public boolean isFull() {
+		return numOfPlayers == maxNumOfPlayers;
+	}
+
+	/**
+	 * Returns true if the server has closed this table, which then takes no
+	 * more clients.
+	 *
+	 * @return true if this table is closed; false otherwise
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes this table.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Returns the authoritative game of this table.
+	 *
+	 * @return the game of this table, or null if there is none
+	 */
+	public CardGame getGame() {
+		return game;
+	}
+
+	/**
+	 * Sets the authoritative game of this table.
+	 *
+	 * @param game
+	 *            the game of this table
+	 */
+	public void setGame(CardGame game) {
+		this.game = game;
+	}
+
+	/**
+	 * Returns the sequence number of the last change of state of the game.
+	 *
+	 * @return the sequence number of the last change of state
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Starts the sequence of a new game, dropping the changes of the previous
+	 * one.
+	 *
+	 * @return the sequence number of the START of the new game
+	 */
+	public int startSequence() {
+		inGame = true;
+		changes.clear();
+		gameSequence = ++sequence;
+		return gameSequence;
+	}
+
+	/**
+	 * Returns true if a game dealt by the server is being played, i.e. it has
+	 * started and neither ended nor lost a player.
+	 *
+	 * @return true if a game is being played
+	 */
+	public boolean isInGame() {
+		return inGame;
+	}
+
+	/**
+	 * Marks the current game as over.
+	 */
+	public void endGame() {
+		inGame = false;
+	}
+
+	/**
+	 * Records the next change of state of the current game. A game only has
+	 * a bounded number of moves, so the changes are kept until the next game
+	 * starts.
+	 *
+	 * @param change
+	 *            the encoded MOVE message, whose sequence number must be
+	 *            getSequence() + 1
+	 */
+	public void addChange(EncodedMessage change) {
+		changes.add(change);
+		sequence++;
+	}
+
+	/**
+	 * Returns the number of changes of state of the current game.
+	 *
+	 * @return the number of moves made in the current game
+	 */
+	public int getNumOfChanges() {
+		return changes.size();
+	}
+
+	/**
+	 * Returns the changes of state of the current game after the specified
+	 * sequence number.
+	 *
+	 * @param sequence
+	 *            the sequence number of the last change applied by a client
+	 * @return the changes made since, or null if the client has not applied
+	 *         the START of the current game
+	 */
+	public List<EncodedMessage> getChangesSince(int sequence) {
+		if (sequence < gameSequence || sequence > this.sequence) {
+			return null;
+		}
+		return changes.subList(sequence - gameSequence, changes.size());
+	}
+
+	/**
+	 * Returns the seat of the specified client at this table.
+	 *
+	 * @param connection
+	 *            the connection to the client
+	 * @return the playerID of the client, or -1 if it is not seated here
+	 */
+	public int indexOf(CardGameConnection connection) {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clientConnections[i] == connection) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Seats the specified client at the first empty seat of this table. The
+	 * seats held for disconnected clients are not empty.
+	 *
+	 * @param connection
+	 *            the connection to the client
+	 * @return the playerID of the client, or -1 if the table is full
+	 */
+	public int addClient(CardGameConnection connection) {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clientConnections[i] == null && !clientHeld[i]) {
+				clientConnections[i] = connection;
+				clientNames[i] = null;
+				clientReadyStates[i] = false;
+				numOfPlayers++;
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Frees the specified seat of this table.
+	 *
+	 * @param playerID
+	 *            the seat to be freed
+	 */
+	public void removeClient(int playerID) {
+		if (clientConnections[playerID] != null || clientHeld[playerID]) {
+			clientConnections[playerID] = null;
+			clientNames[playerID] = null;
+			clientReadyStates[playerID] = false;
+			clientTokens[playerID] = 0L;
+			clientHeld[playerID] = false;
+			numOfPlayers--;
+		}
+	}
+
+	/**
+	 * Keeps the specified seat for its client, whose connection has been
+	 * lost, so that the client can resume its game with its reconnect token.
+	 *
+	 * @param playerID
+	 *            the seat to be held
+	 */
+	public void holdClient(int playerID) {
+		if (clientConnections[playerID] != null) {
+			clientConnections[playerID] = null;
+			clientHeld[playerID] = true;
+		}
+	}
+
+	/**
+	 * Returns true if the specified seat is held for a disconnected client.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @return true if the seat is held
+	 */
+	public boolean isHeld(int playerID) {
+		return clientHeld[playerID];
+	}
+
+	/**
+	 * Gives a held seat back to its client, on a new connection.
+	 *
+	 * @param playerID
+	 *            the held seat
+	 * @param connection
+	 *            the new connection to the client
+	 */
+	public void resumeClient(int playerID, CardGameConnection connection) {
+		if (clientHeld[playerID]) {
+			clientConnections[playerID] = connection;
+			clientHeld[playerID] = false;
+		}
+	}
+
+	/**
+	 * Returns the reconnect token of the specified seat.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @return the token, or 0 if the seat has none
+	 */
+	public long getToken(int playerID) {
+		return clientTokens[playerID];
+	}
+
+	/**
+	 * Sets the reconnect token of the specified seat.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @param token
+	 *            the token, or 0 for none
+	 */
+	public void setToken(int playerID, long token) {
+		clientTokens[playerID] = token;
+	}
+
+	/**
+	 * Returns the seat holding the specified reconnect token.
+	 *
+	 * @param token
+	 *            the token
+	 * @return the playerID of the seat, or -1 if no seat holds the token
+	 */
+	public int indexOfToken(long token) {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (token != 0L && clientTokens[i] == token) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the connection of the specified seat.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @return the connection, or null if the seat is empty
+	 */
+	public CardGameConnection getConnection(int playerID) {
+		return clientConnections[playerID];
+	}
+
+	/**
+	 * Returns the player name of the specified seat.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @return the name of the player, or null if it is not known yet
+	 */
+	public String getName(int playerID) {
+		return clientNames[playerID];
+	}
+
+	/**
+	 * Sets the player name of the specified seat.
+	 *
+	 * @param playerID
+	 *            the seat
+	 * @param name
+	 *            the name of the player
+	 */
+	public void setName(int playerID, String name) {
+		clientNames[playerID] = name;
+	}
+
+	/**
+	 * Returns a copy of the player names of this table.
+	 *
+	 * @return an array holding the name of every seat (null for empty seats)
+	 */
+	public String[] getNames() {
+		return clientNames.clone();
+	}
+
+	/**
+	 * Marks the specified seat as ready for a new game.
+	 *
+	 * @param playerID
+	 *            the seat
+	 */
+	public void setReady(int playerID) {
+		clientReadyStates[playerID] = true;
+	}
+
+	/**
+	 * Returns true if the table is full and every player is ready, and if so
+	 * resets the ready states for the next game.
+	 *
+	 * @return true if a new game can start; false otherwise
+	 */
+	public boolean checkAllReady() {
+		if (!isFull()) {
+			return false;
+		}
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clientReadyStates[i] == false) {
+				// returns if any of the players is not ready
+				return false;
+			}
+		}
+		// resets the ready states of all the players for the next game
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			clientReadyStates[i] = false;
+		}
+		return true;
+	}
+}
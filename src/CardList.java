@@ -1,14 +1,21 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 
 /**
- * This class is used to represent a list of cards.
+ * This class is used to represent a list of cards. The order of the cards is
+ * kept in a list while their membership is mirrored in a CardSet, so a card
+ * list is expected to hold at most one copy of each card.
  * 
  * @author Kenneth Wong
  */
 public class CardList implements Serializable {
 	private static final long serialVersionUID = -3711761437629470849L;
 	private ArrayList<Card> cards = new ArrayList<Card>();
+	// mirrors the membership of the cards; it is not serialized, so that the
+	// lists written before it existed are still read
+	private transient CardSet cardSet = new CardSet();
 
 	/**
 	 * Appends the specified card to the end of this list.
@@ -18,6 +25,7 @@ public class CardList implements Serializable {
 	public void addCard(Card card) {
 		if (card != null) {
 			cards.add(card);
+			cardSet.add(card);
 		}
 	}
 
@@ -46,7 +54,11 @@ public class CardList implements Serializable {
 	 */
 	public Card removeCard(int i) {
 		if (i >= 0 && i < cards.size()) {
-			return cards.remove(i);
+			Card card = cards.remove(i);
+			if (card != null) {
+				cardSet.remove(card);
+			}
+			return card;
 		} else {
 			return null;
 		}
@@ -62,14 +74,32 @@ public class CardList implements Serializable {
 	 * @return true if this list contained the specified card; otherwise false
 	 */
 	public boolean removeCard(Card card) {
+		if (card == null || !cardSet.remove(card)) {
+			return false;
+		}
 		return cards.remove(card);
 	}
 
+	/**
+	 * Removes all the cards of the specified list from this list in a single
+	 * pass. Cards that are not in this list are ignored.
+	 * 
+	 * @param cards the list of cards to be removed from this list
+	 */
+	public void removeCards(CardList cards) {
+		long bits = this.cardSet.toLong() & cards.cardSet.toLong();
+		if (bits != 0L) {
+			this.cards.removeIf(card -> (bits & CardSet.maskOf(card)) != 0L);
+			this.cardSet.removeAll(cards.cardSet);
+		}
+	}
+
 	/**
 	 * Removes all cards from this list.
 	 */
 	public void removeAllCards() {
-		cards = new ArrayList<Card>();
+		cards.clear();
+		cardSet.clear();
 	}
 
 	/**
@@ -77,13 +107,22 @@ public class CardList implements Serializable {
 	 * card.
 	 * 
 	 * @param i    the index of the card to be replaced
-	 * @param card the card to be stored at the specified position
+	 * @param card the card to be stored at the specified position, which may be
+	 *             null
 	 * @return the card previously stored at the specified position, or null if the
 	 *         index is invalid
 	 */
 	public Card setCard(int i, Card card) {
 		if (i >= 0 && i < cards.size()) {
-			return cards.set(i, card);
+			Card oldCard = cards.set(i, card);
+			// a null card may be stored, but it is not a member of the card set
+			if (oldCard != null) {
+				cardSet.remove(oldCard);
+			}
+			if (card != null) {
+				cardSet.add(card);
+			}
+			return oldCard;
 		} else {
 			return null;
 		}
@@ -96,7 +135,29 @@ public class CardList implements Serializable {
 	 * @return true if this list contains the specified card; otherwise false
 	 */
 	public boolean contains(Card card) {
-		return cards.contains(card);
+		return card != null && cardSet.contains(card);
+	}
+
+	/**
+	 * Swaps the cards at the specified positions in this list. Does nothing if
+	 * either index is invalid.
+	 * 
+	 * @param i the index of one of the cards to be swapped
+	 * @param j the index of the other card to be swapped
+	 */
+	public void swapCards(int i, int j) {
+		if (i >= 0 && i < cards.size() && j >= 0 && j < cards.size()) {
+			cards.set(i, cards.set(j, cards.get(i)));
+		}
+	}
+
+	/**
+	 * Returns the set of cards in this list.
+	 * 
+	 * @return a CardSet containing the cards in this list
+	 */
+	public CardSet getCardSet() {
+		return new CardSet(cardSet.toLong());
 	}
 
 	/**
@@ -185,4 +246,21 @@ public class CardList implements Serializable {
 
 		return string;
 	}
+
+	/**
+	 * Reads this list from a stream and rebuilds its card set from its cards.
+	 * 
+	 * @param in the stream to read from
+	 * @throws IOException            if the stream cannot be read
+	 * @throws ClassNotFoundException if the class of a card cannot be found
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cardSet = new CardSet();
+		for (Card card : cards) {
+			if (card != null) {
+				cardSet.add(card);
+			}
+		}
+	}
 }
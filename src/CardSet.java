@@ -0,0 +1,207 @@
+import java.io.Serializable;
+
+/**
+ * The CardSet class is used to model an unordered set of cards taken from a standard 52-card deck.
+ * Each card occupies a single bit of a long value (bit index = suit * 13 + rank), so adding, removing
+ * and testing the presence of a card are constant time operations and the size of the set is a
+ * single population count.
+ *
+ * @author DaveMatthew
+ *
+ */
+public class CardSet implements Serializable {
+	private static final long serialVersionUID = 2361487209175528310L;
+
+	/**
+	 * the number of cards in a standard deck (i.e. the number of usable bits).
+	 */
+	public static final int NUM_OF_CARDS = 52;
+
+	/**
+	 * a long value with all the bits of a standard deck set.
+	 */
+	public static final long ALL_CARDS = (1L << NUM_OF_CARDS) - 1;
+
+	/**
+	 * the bits of the cards in this set.
+	 */
+	private long bits;
+
+	/**
+	 * a constructor for building an empty set of cards.
+	 */
+	public CardSet() {
+		this.bits = 0L;
+	}
+
+	/**
+	 * a constructor for building a set of cards from the specified bits.
+	 *
+	 * @param bits a long value where bit (suit * 13 + rank) is set for every card in the set
+	 */
+	public CardSet(long bits) {
+		this.bits = bits & ALL_CARDS;
+	}
+
+	/**
+	 * a method for retrieving the bit index of the specified card.
+	 *
+	 * @param card the card whose index is to be returned
+	 * @return an integer between 0 and 51 (suit * 13 + rank)
+	 */
+	public static int indexOf(Card card) {
+		return card.getOrdinal();
+	}
+
+	/**
+	 * a method for retrieving the bit mask of the specified card.
+	 *
+	 * @param card the card whose mask is to be returned
+	 * @return a long value with only the bit of the specified card set
+	 */
+	public static long maskOf(Card card) {
+		return 1L << indexOf(card);
+	}
+
+	/**
+	 * a method for adding the specified card to this set.
+	 *
+	 * @param card the card to be added
+	 * @return true if this set did not already contain the card; otherwise false
+	 */
+	public boolean add(Card card) {
+		long mask = maskOf(card);
+		boolean added = (this.bits & mask) == 0;
+		this.bits |= mask;
+		return added;
+	}
+
+	/**
+	 * a method for removing the specified card from this set.
+	 *
+	 * @param card the card to be removed
+	 * @return true if this set contained the card; otherwise false
+	 */
+	public boolean remove(Card card) {
+		long mask = maskOf(card);
+		boolean removed = (this.bits & mask) != 0;
+		this.bits &= ~mask;
+		return removed;
+	}
+
+	/**
+	 * a method for checking if this set contains the specified card.
+	 *
+	 * @param card the card whose presence is to be tested
+	 * @return true if this set contains the card; otherwise false
+	 */
+	public boolean contains(Card card) {
+		return (this.bits & maskOf(card)) != 0;
+	}
+
+	/**
+	 * a method for checking if this set contains the card with the specified index.
+	 *
+	 * @param index an integer between 0 and 51 (suit * 13 + rank)
+	 * @return true if this set contains the card; otherwise false
+	 */
+	public boolean contains(int index) {
+		return (this.bits & (1L << index)) != 0;
+	}
+
+	/**
+	 * a method for checking if this set contains all the cards of the specified set.
+	 *
+	 * @param cards the set of cards to be tested
+	 * @return true if every card of the specified set is in this set; otherwise false
+	 */
+	public boolean containsAll(CardSet cards) {
+		return (cards.bits & ~this.bits) == 0;
+	}
+
+	/**
+	 * a method for adding all the cards of the specified set to this set.
+	 *
+	 * @param cards the set of cards to be added
+	 */
+	public void addAll(CardSet cards) {
+		this.bits |= cards.bits;
+	}
+
+	/**
+	 * a method for removing all the cards of the specified set from this set.
+	 *
+	 * @param cards the set of cards to be removed
+	 */
+	public void removeAll(CardSet cards) {
+		this.bits &= ~cards.bits;
+	}
+
+	/**
+	 * a method for removing all cards from this set.
+	 */
+	public void clear() {
+		this.bits = 0L;
+	}
+
+	/**
+	 * a method for retrieving the number of cards in this set.
+	 *
+	 * @return the number of cards in this set
+	 */
+	public int size() {
+		return Long.bitCount(this.bits);
+	}
+
+	/**
+	 * a method for checking if this set contains no cards.
+	 *
+	 * @return true if this set is empty; otherwise false
+	 */
+	public boolean isEmpty() {
+		return this.bits == 0L;
+	}
+
+	/**
+	 * a method for retrieving the index of the first card in this set at or after the specified index.
+	 * Iterating with nextIndex(0), nextIndex(i + 1), ... visits the cards in increasing index order.
+	 *
+	 * @param from the index to start searching from
+	 * @return the index of the next card, or -1 if there is no such card
+	 */
+	public int nextIndex(int from) {
+		if (from >= NUM_OF_CARDS) {
+			return -1;
+		}
+		long remaining = this.bits & (-1L << from);
+		return remaining == 0L ? -1 : Long.numberOfTrailingZeros(remaining);
+	}
+
+	/**
+	 * a method for retrieving the bits of this set.
+	 *
+	 * @return a long value where bit (suit * 13 + rank) is set for every card in this set
+	 */
+	public long toLong() {
+		return this.bits;
+	}
+
+	/**
+	 * Indicates whether the specified set contains exactly the same cards as this one.
+	 *
+	 * @param obj the reference object with which to compare
+	 * @return true if the specified object is a CardSet with the same cards; otherwise false
+	 */
+	public boolean equals(Object obj) {
+		return (obj instanceof CardSet) && ((CardSet) obj).bits == this.bits;
+	}
+
+	/**
+	 * Returns a hash code value for the set.
+	 *
+	 * @return a hash code value for the set
+	 */
+	public int hashCode() {
+		return Long.hashCode(this.bits);
+	}
+}
@@ -20,8 +20,7 @@ public class Deck extends CardList {
 		removeAllCards();
 		for (int i = 0; i < 4; i++) {
 			for (int j = 0; j < 13; j++) {
-				Card card = new Card(i, j);
-				addCard(card);
+				addCard(Card.valueOf(i, j));
 			}
 		}
 	}
@@ -33,8 +32,7 @@ public class Deck extends CardList {
 		for (int i = 0; i < this.size(); i++) {
 			int j = (int) (Math.random() * this.size());
 			if (i != j) {
-				Card card = setCard(i, getCard(j));
-				setCard(j, card);
+				swapCards(i, j);
 			}
 		}
 	}
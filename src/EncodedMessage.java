@@ -0,0 +1,65 @@
+import java.io.IOException;
+
+/**
+ * This class is used to model a message encoded into a frame (see
+ * MessageFrame), ready to be written to any number of clients. A broadcast is
+ * encoded once and the same frame is queued for every client of the table.
+ * Instances are immutable; the frame must not be modified.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public final class EncodedMessage {
+	// The type of the message, used by the policies of OutboundQueue
+	private final int type;
+	// The frame, including its length prefix
+	private final byte[] frame;
+
+	/**
+	 * Creates and returns an instance of the EncodedMessage class.
+	 *
+	 * @param type
+	 *            the type of the message
+	 * @param frame
+	 *            the frame, including its length prefix
+	 */
+	public EncodedMessage(int type, byte[] frame) {
+		this.type = type;
+		this.frame = frame;
+	}
+
+	/**
+	 * Encodes the specified message.
+	 *
+	 * @param codec
+	 *            the codec of the payload
+	 * @param message
+	 *            the message to be encoded
+	 * @return the encoded message
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public static EncodedMessage encode(MessageCodec codec, GameMessage message)
+			throws IOException {
+		return new EncodedMessage(message.getType(), MessageFrame.encode(codec,
+				message));
+	}
+
+	/**
+	 * Returns the type of the message.
+	 *
+	 * @return the type of the message
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the frame. The array is shared and must not be modified.
+	 *
+	 * @return the frame, including its length prefix
+	 */
+	public byte[] getFrame() {
+		return frame;
+	}
+}
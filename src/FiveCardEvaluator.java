@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The FiveCardEvaluator class is an optional lookup table holding the packed HandClassifier code of
+ * every one of the C(52,5) = 2,598,960 five-card combinations. A combination is mapped to its slot by
+ * the combinatorial number system, which is a perfect hash of the five card ordinals, so evaluating
+ * a five-card hand is a handful of shifts and a single table load.
+ * <p>
+ * The table is enabled with the system property bigtwo.evaluator. If the property is "memory" the
+ * table is generated in memory on first use; otherwise it names a file which is memory-mapped, and
+ * which is generated on first use if it does not exist yet. The file can also be generated ahead of
+ * time by running this class with the path of the file as its argument.
+ *
+ * @author DaveMatthew
+ *
+ */
+public final class FiveCardEvaluator {
+
+	/**
+	 * the name of the system property enabling the table.
+	 */
+	public static final String PROPERTY = "bigtwo.evaluator";
+
+	/**
+	 * whether the table is enabled for HandClassifier.
+	 */
+	public static final boolean ENABLED = System.getProperty(PROPERTY) != null;
+
+	/**
+	 * the number of five-card combinations.
+	 */
+	public static final int NUM_OF_COMBINATIONS = 2598960;
+
+	/**
+	 * the value identifying a table file, followed by the number of entries.
+	 */
+	private static final int MAGIC = 0x42325435; // "B2T5"
+
+	/**
+	 * the size of the file header in bytes.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/**
+	 * binomial coefficients C(n, k) for n = 0..51 and k = 0..5.
+	 */
+	private static final int[][] BINOMIAL = new int[6][52];
+
+	static {
+		for (int n = 0; n < 52; n++) {
+			BINOMIAL[0][n] = 1;
+			for (int k = 1; k < 6; k++) {
+				BINOMIAL[k][n] = (n == 0) ? 0 : BINOMIAL[k][n - 1] + BINOMIAL[k - 1][n - 1];
+			}
+		}
+	}
+
+	/**
+	 * the packed codes indexed by combination.
+	 */
+	private final ShortBuffer codes;
+
+	/**
+	 * a constructor for building an evaluator over the specified table.
+	 *
+	 * @param codes the packed codes indexed by combination
+	 */
+	private FiveCardEvaluator(ShortBuffer codes) {
+		this.codes = codes;
+	}
+
+	/**
+	 * a holder class so that the default table is only built or mapped on first use.
+	 */
+	private static class Holder {
+		static final FiveCardEvaluator INSTANCE = load(System.getProperty(PROPERTY));
+	}
+
+	/**
+	 * a method for retrieving the table selected by the bigtwo.evaluator system property.
+	 *
+	 * @return the shared evaluator, or null if the table is not enabled
+	 */
+	public static FiveCardEvaluator getDefault() {
+		return ENABLED ? Holder.INSTANCE : null;
+	}
+
+	/**
+	 * a method for evaluating five cards.
+	 *
+	 * @param cardBits a long value where bit (suit * 13 + rank) is set for every card
+	 * @return the packed HandClassifier code of the cards, or HandClassifier.INVALID if there are
+	 *         not exactly five cards or they do not form a legal hand
+	 */
+	public int evaluate(long cardBits) {
+		if (Long.bitCount(cardBits) != 5) {
+			return HandClassifier.INVALID;
+		}
+		return this.codes.get(indexOf(cardBits));
+	}
+
+	/**
+	 * a method for retrieving the slot of a five-card combination.
+	 *
+	 * @param cardBits a long value with exactly five bits set
+	 * @return an integer between 0 and NUM_OF_COMBINATIONS - 1
+	 */
+	static int indexOf(long cardBits) {
+		int index = 0;
+		for (int k = 1; k <= 5; k++) {
+			index += BINOMIAL[k][Long.numberOfTrailingZeros(cardBits)];
+			cardBits &= cardBits - 1;
+		}
+		return index;
+	}
+
+	/**
+	 * a method for building the table in memory.
+	 *
+	 * @return an evaluator over a newly generated table
+	 */
+	public static FiveCardEvaluator generate() {
+		ShortBuffer codes = ShortBuffer.allocate(NUM_OF_COMBINATIONS);
+		fill(codes);
+		return new FiveCardEvaluator(codes);
+	}
+
+	/**
+	 * a method for filling the specified buffer with the code of every combination.
+	 *
+	 * @param codes a buffer with room for NUM_OF_COMBINATIONS entries
+	 */
+	private static void fill(ShortBuffer codes) {
+		for (int a = 0; a < 52; a++) {
+			for (int b = a + 1; b < 52; b++) {
+				for (int c = b + 1; c < 52; c++) {
+					for (int d = c + 1; d < 52; d++) {
+						for (int e = d + 1; e < 52; e++) {
+							long cardBits = (1L << a) | (1L << b) | (1L << c) | (1L << d) | (1L << e);
+							int code = HandClassifier.classifyStrengths(HandClassifier.toStrengths(cardBits));
+							codes.put(indexOf(cardBits), (short) code);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * a method for writing a newly generated table to the specified file.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeTo(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 * NUM_OF_COMBINATIONS);
+		buffer.putInt(MAGIC).putInt(NUM_OF_COMBINATIONS);
+		ShortBuffer codes = buffer.slice().asShortBuffer();
+		fill(codes);
+		buffer.rewind();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * a method for memory-mapping a table file.
+	 *
+	 * @param path the path of the file
+	 * @return an evaluator over the mapped table
+	 * @throws IOException if the file cannot be read or is not a table file
+	 */
+	public static FiveCardEvaluator map(Path path) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+				FileChannel channel = file.getChannel()) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (channel.size() != HEADER_SIZE + 2L * NUM_OF_COMBINATIONS || buffer.getInt() != MAGIC
+					|| buffer.getInt() != NUM_OF_COMBINATIONS) {
+				throw new IOException("Not a five-card table: " + path);
+			}
+			return new FiveCardEvaluator(buffer.slice().asShortBuffer());
+		}
+	}
+
+	/**
+	 * a method for loading the table selected by the value of the bigtwo.evaluator system property.
+	 *
+	 * @param location "memory", or the path of a table file which is generated if it does not exist
+	 * @return an evaluator over the loaded table
+	 */
+	private static FiveCardEvaluator load(String location) {
+		if (location == null || location.equals("memory")) {
+			return generate();
+		}
+		try {
+			Path path = Paths.get(location);
+			if (!Files.exists(path)) {
+				writeTo(path);
+			}
+			return map(path);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			return generate();
+		}
+	}
+
+	/**
+	 * main() method for generating a table file ahead of time.
+	 *
+	 * @param args the path of the table file to be written
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: java FiveCardEvaluator <file>");
+			return;
+		}
+		writeTo(Paths.get(args[0]));
+	}
+}
@@ -0,0 +1,157 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * This class is used to exchange framed messages (see MessageFrame) over a
+ * blocking connection. Unlike a long-lived ObjectOutputStream, it keeps no
+ * state between messages: both directions go through fixed-size buffers,
+ * and the read buffer only grows for a large frame and is released after it,
+ * so the memory used by a connection stays bounded however long it lives.
+ * Written messages stay in the buffer until flush() is called, so a batch of
+ * messages costs a single write to the socket.
+ * <p>
+ * The input and the output are independent: one thread may read while
+ * another writes, but each direction must be used by one thread at a time.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class FramedMessageStream implements Closeable {
+	// The size of the buffers of the socket streams
+	private static final int BUFFER_SIZE = 8192;
+	// The size of the read buffer kept between frames
+	private static final int PAYLOAD_BUFFER_SIZE = 1024;
+
+	// The buffered input
+	private final DataInputStream in;
+	// The buffered output
+	private final OutputStream out;
+	// The codec of the payloads
+	private final MessageCodec codec;
+	// The buffer receiving the payload of a frame
+	private byte[] payload = new byte[PAYLOAD_BUFFER_SIZE];
+
+	/**
+	 * Creates and returns an instance of the FramedMessageStream class for
+	 * the specified socket.
+	 *
+	 * @param socket
+	 *            the socket
+	 * @param codec
+	 *            the codec of the payloads
+	 * @throws IOException
+	 *             if the socket is closed
+	 */
+	public FramedMessageStream(Socket socket, MessageCodec codec)
+			throws IOException {
+		this(socket.getInputStream(), socket.getOutputStream(), codec);
+	}
+
+	/**
+	 * Creates and returns an instance of the FramedMessageStream class.
+	 *
+	 * @param in
+	 *            the input stream, or null if the stream is only written
+	 * @param out
+	 *            the output stream, or null if the stream is only read
+	 * @param codec
+	 *            the codec of the payloads
+	 */
+	public FramedMessageStream(InputStream in, OutputStream out,
+			MessageCodec codec) {
+		this.in = (in == null) ? null : new DataInputStream(
+				new BufferedInputStream(in, BUFFER_SIZE));
+		this.out = (out == null) ? null : new BufferedOutputStream(out,
+				BUFFER_SIZE);
+		this.codec = codec;
+	}
+
+	/**
+	 * Returns the codec of the payloads.
+	 *
+	 * @return the codec of the payloads
+	 */
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Reads the next message, waiting for it if needed.
+	 *
+	 * @return the message
+	 * @throws java.io.EOFException
+	 *             if the stream ends
+	 * @throws IOException
+	 *             if the frame cannot be read or decoded
+	 */
+	public GameMessage readMessage() throws IOException {
+		int length = in.readInt();
+		MessageFrame.checkLength(length);
+		byte[] buffer = payload;
+		if (length > buffer.length) {
+			// a large frame gets a buffer of its own, released afterwards
+			buffer = new byte[length];
+		}
+		in.readFully(buffer, 0, length);
+		return codec.decode(buffer, 0, length);
+	}
+
+	/**
+	 * Writes the specified message to the buffer. The message reaches the
+	 * socket when the buffer fills up or flush() is called.
+	 *
+	 * @param message
+	 *            the message
+	 * @throws IOException
+	 *             if the message cannot be encoded or written
+	 */
+	public void writeMessage(GameMessage message) throws IOException {
+		out.write(MessageFrame.encode(codec, message));
+	}
+
+	/**
+	 * Writes the specified frame, encoded beforehand, to the buffer.
+	 *
+	 * @param frame
+	 *            the frame, including its length prefix
+	 * @throws IOException
+	 *             if the frame cannot be written
+	 */
+	public void writeFrame(byte[] frame) throws IOException {
+		out.write(frame);
+	}
+
+	/**
+	 * Writes the buffered messages to the socket.
+	 *
+	 * @throws IOException
+	 *             if the messages cannot be written
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Closes both directions of the stream, and so the underlying socket.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	public void close() throws IOException {
+		try {
+			if (out != null) {
+				out.close();
+			}
+		} finally {
+			if (in != null) {
+				in.close();
+			}
+		}
+	}
+}
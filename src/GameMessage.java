@@ -10,6 +10,7 @@ public class GameMessage implements Serializable {
 	private int type;
 	private int playerID;
 	private Object data;
+	private int sequence;
 	
 	/**
 	 * Creates and returns an instance of the GameMessage class.
@@ -70,4 +71,21 @@ public class GameMessage implements Serializable {
 	public void setData(Object data) {
 		this.data = data;
 	}
+	
+	/**
+	 * Returns the sequence number of this message, which orders the changes
+	 * of state of a game; 0 if this message is not part of that sequence.
+	 * @return the sequence number of this message
+	 */
+	public int getSequence() {
+		return this.sequence;
+	}
+	
+	/**
+	 * Sets the sequence number of this message.
+	 * @param sequence the sequence number of this message, or 0
+	 */
+	public void setSequence(int sequence) {
+		this.sequence = sequence;
+	}
 }
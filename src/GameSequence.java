@@ -0,0 +1,101 @@
+/**
+ * The GameSequence class is used to follow the sequence numbers of the changes of state sent by the
+ * server (see GameMessage.getSequence()). It tells the client whether a change should be applied,
+ * skipped as already applied, or skipped because some changes have been missed and the server
+ * has to be asked to send them again with a RESYNC message.
+ *
+ * @author DaveMatthew
+ *
+ */
+class GameSequence {
+
+	/**
+	 * the change follows the last one applied, and should be applied.
+	 */
+	static final int APPLY = 0;
+
+	/**
+	 * the change has already been applied, or comes after a gap already reported, and should be skipped.
+	 */
+	static final int SKIP = 1;
+
+	/**
+	 * the change comes after a gap: it should be skipped, and a RESYNC message sent to the server.
+	 */
+	static final int RESYNC = 2;
+
+	/**
+	 * the sequence number of the last change of state of the game applied, or 0 if none.
+	 */
+	private int lastSequence;
+
+	/**
+	 * a boolean value that represent whether a RESYNC message is waiting for its answer.
+	 */
+	private boolean resyncing;
+
+	/**
+	 * a method for getting the sequence number of the last change applied.
+	 *
+	 * @return the sequence number of the last change applied, or 0 if none
+	 */
+	int getLastSequence() {
+		return this.lastSequence;
+	}
+
+	/**
+	 * a method for starting over, when the client joins a table or resumes its seat.
+	 */
+	void reset() {
+		this.moveTo(0);
+	}
+
+	/**
+	 * a method for recording that the state of the game has been replaced, by a START or
+	 * a SNAPSHOT message with the specified sequence number.
+	 *
+	 * @param sequence the sequence number of the new state
+	 */
+	void moveTo(int sequence) {
+		this.lastSequence = sequence;
+		this.resyncing = false;
+	}
+
+	/**
+	 * a method for checking if a snapshot with the specified sequence number is older than
+	 * the last change applied.
+	 *
+	 * @param sequence the sequence number of the snapshot
+	 * @return true if the snapshot should be skipped; false otherwise
+	 */
+	boolean isStale(int sequence) {
+		return sequence < this.lastSequence;
+	}
+
+	/**
+	 * a method for checking that a change of state with the specified sequence number follows
+	 * the last one applied. The change is recorded as applied if it does. A gap is reported
+	 * once, until a change or a state closes it.
+	 *
+	 * @param sequence the sequence number of a START or MOVE message
+	 * @return APPLY, SKIP or RESYNC
+	 */
+	int check(int sequence) {
+		if (sequence == 0) {
+			// the server does not number the changes
+			return APPLY;
+		}
+		if (sequence <= this.lastSequence) {
+			return SKIP;
+		}
+		if (sequence > this.lastSequence + 1) {
+			if (this.resyncing) {
+				return SKIP;
+			}
+			this.resyncing = true;
+			return RESYNC;
+		}
+		this.moveTo(sequence);
+		return APPLY;
+	}
+}
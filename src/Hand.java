@@ -2,7 +2,9 @@
  * The Hand class is a subclass of the CardList class and is used to model a hand of cards. It has 
  * a private instance variable for storing the player who plays this hand. It also has methods for 
  * getting the player of this hand, checking if it is a valid hand, getting the type of this hand, 
- * getting the top card of this hand, and checking if it beats a specified hand.
+ * getting the top card of this hand, and checking if it beats a specified hand. A hand is 
+ * classified once when it is built, so its cards cannot be changed afterwards: the methods 
+ * of CardList that would change them throw an UnsupportedOperationException.
  * 
  * @author DaveMatthew
  *
@@ -14,6 +16,12 @@ public abstract class Hand extends CardList {
 	 */
 	private final CardGamePlayer player;
 	
+	/**
+	 * the packed HandClassifier code of this hand, computed once at construction, 
+	 * or HandClassifier.INVALID if the cards do not form a hand of this type.
+	 */
+	private final int code;
+	
 	/**
 	 * a constructor for building a hand with the specified player and list of cards.
 	 * 
@@ -23,9 +31,10 @@ public abstract class Hand extends CardList {
 	public Hand(CardGamePlayer player, CardList cards) {
 		this.player = player;
 		for (int i = 0; i < cards.size(); i++) {
-			this.addCard(cards.getCard(i));
+			super.addCard(cards.getCard(i));
 		}
-		this.sort();
+		super.sort();
+		this.code = HandClassifier.classifyAs(this.getHandType(), this);
 	}
 	
 	/**
@@ -38,13 +47,13 @@ public abstract class Hand extends CardList {
 	}
 	
 	/**
-	 * a method for retrieving the top card of this hand.
+	 * a method for retrieving the top card of this hand. The cards are sorted 
+	 * when the hand is built and cannot be changed, so the top card is the last one.
 	 * 
 	 * @return card object which is the top card of this hand
 	 */
 	public Card getTopCard() {
 		if (!this.isEmpty()) {
-			this.sort();
 			return (this.getCard(this.size()-1));
 		} else {
 			return null;
@@ -52,6 +61,15 @@ public abstract class Hand extends CardList {
 		
 	}
 	
+	/**
+	 * a method for retrieving the packed HandClassifier code of this hand.
+	 * 
+	 * @return the code of this hand, or HandClassifier.INVALID if it is not a valid hand
+	 */
+	public int getCode() {
+		return this.code;
+	}
+	
 	/**
 	 * a method for checking if this hand beats a specified hand.
 	 * 
@@ -59,28 +77,124 @@ public abstract class Hand extends CardList {
 	 * @return boolean value that specify whether this hand beats the hand in the argument
 	 */
 	public boolean beats(Hand hand) {
-		if (hand == null || !hand.isValid() || !this.isValid() || this.getType() != hand.getType()) {
-			return false;
-		} else {
-			return (this.getTopCard().compareTo(hand.getTopCard()) > 0);
-		}
+		return hand != null && HandClassifier.beats(this.code, hand.code);
 	}
 	
-	/// abstract function below
-	
 	/**
-	 * an abstract method for checking if this is a valid hand.
+	 * a method for checking if this is a valid hand.
 	 * 
 	 * @return boolean value that specify whether the hand is valid or not
 	 */
-	public abstract boolean isValid();
+	public boolean isValid() {
+		return this.code != HandClassifier.INVALID;
+	}
+	
+	/**
+	 * a method for returning a string specifying the type of this hand.
+	 * 
+	 * @return string that specify the type of this hand, or null if the hand is not valid
+	 */
+	public String getType() {
+		return this.isValid() ? this.getHandType().getName() : null;
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @param card not used
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addCard(Card card) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @param i not used
+	 * @return never returns
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public Card removeCard(int i) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @param card not used
+	 * @return never returns
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean removeCard(Card card) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @param cards not used
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void removeCards(CardList cards) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void removeAllCards() {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be changed once built.
+	 * 
+	 * @param i not used
+	 * @param card not used
+	 * @return never returns
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public Card setCard(int i, Card card) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * a hand cannot be reordered once built, as its top card is the last one.
+	 * 
+	 * @param i not used
+	 * @param j not used
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void swapCards(int i, int j) {
+		throw new UnsupportedOperationException("A hand cannot be changed");
+	}
+	
+	/**
+	 * does nothing, as the cards of a hand are sorted when it is built.
+	 */
+	@Override
+	public void sort() {
+	}
+	
+	/// abstract function below
 	
 	/**
-	 * an abstract method for returning a string specifying the type of this hand.
+	 * an abstract method for returning the category of this hand. It must not depend 
+	 * on the state of the subclass as it is called from the constructor of Hand.
 	 * 
-	 * @return string that specify the type of this hand
+	 * @return the HandType of this hand
 	 */
-	public abstract String getType();
+	public abstract HandType getHandType();
 	
 	
 }
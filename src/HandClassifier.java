@@ -0,0 +1,238 @@
+/**
+ * The HandClassifier class is used to find the strongest legal Big Two hand that can be formed from a
+ * list of cards. It makes a single pass over the cards, building a bit mask of their Big Two
+ * strengths (see BigTwoCard.getStrength()) from which the rank histogram, the suits and the top card
+ * are read with a few bit operations, without building or sorting any Hand object.
+ * <p>
+ * The result is packed into an int: the ordinal of the HandType in the upper bits and a comparison
+ * key in the lowest 8 bits. Two hands of the same type compare by their keys, so a larger key means
+ * a stronger hand. Five-card hands are looked up in the FiveCardEvaluator table when it is enabled.
+ *
+ * @author DaveMatthew
+ *
+ */
+public final class HandClassifier {
+
+	/**
+	 * the code returned when no legal hand can be formed from the cards.
+	 */
+	public static final int INVALID = -1;
+
+	/**
+	 * the number of bits used by the comparison key.
+	 */
+	private static final int KEY_BITS = 8;
+
+	/**
+	 * the mask of the comparison key.
+	 */
+	private static final int KEY_MASK = (1 << KEY_BITS) - 1;
+
+	/**
+	 * a private constructor as this class only provides static methods.
+	 */
+	private HandClassifier() {
+	}
+
+	/**
+	 * a method for classifying the specified list of cards.
+	 *
+	 * @param cards the list of cards
+	 * @return the packed code of the strongest hand formed by exactly these cards, or INVALID
+	 */
+	public static int classify(CardList cards) {
+		if (cards == null) {
+			return INVALID;
+		}
+		if (cards.size() == 5 && FiveCardEvaluator.ENABLED) {
+			long cardBits = 0L;
+			for (int i = 0; i < 5; i++) {
+				cardBits |= 1L << cards.getCard(i).getOrdinal();
+			}
+			return FiveCardEvaluator.getDefault().evaluate(cardBits);
+		}
+		long strengths = 0L;
+		for (int i = 0; i < cards.size(); i++) {
+			strengths |= 1L << BigTwoCard.strengthOf(cards.getCard(i));
+		}
+		if (Long.bitCount(strengths) != cards.size()) {
+			// the same card was listed more than once
+			return INVALID;
+		}
+		return classifyStrengths(strengths);
+	}
+
+	/**
+	 * a method for classifying the specified set of cards.
+	 *
+	 * @param cardBits a long value where bit (suit * 13 + rank) is set for every card
+	 * @return the packed code of the strongest hand formed by exactly these cards, or INVALID
+	 */
+	public static int classify(long cardBits) {
+		if (FiveCardEvaluator.ENABLED && Long.bitCount(cardBits) == 5) {
+			return FiveCardEvaluator.getDefault().evaluate(cardBits);
+		}
+		return classifyStrengths(toStrengths(cardBits));
+	}
+
+	/**
+	 * a method for classifying the specified list of cards as a hand of the specified type. Unlike
+	 * classify(), a straight flush is also accepted as a straight or as a flush.
+	 *
+	 * @param type the type of hand the cards are played as
+	 * @param cards the list of cards
+	 * @return the packed code of the cards played as the specified type, or INVALID
+	 */
+	public static int classifyAs(HandType type, CardList cards) {
+		int code = classify(cards);
+		if (code == INVALID || getType(code) == type) {
+			return code;
+		}
+		if (getType(code) == HandType.STRAIGHT_FLUSH) {
+			int top = getKey(code);
+			if (type == HandType.STRAIGHT) {
+				return pack(HandType.STRAIGHT, top);
+			} else if (type == HandType.FLUSH) {
+				return pack(HandType.FLUSH, ((top & 3) << 6) | top);
+			}
+		}
+		return INVALID;
+	}
+
+	/**
+	 * a method for checking if a hand beats another hand, given their codes. Hands of the same type
+	 * compare by their keys, and hands of different types by the dominance table of HandType.
+	 *
+	 * @param code the code of the hand being played
+	 * @param otherCode the code of the hand it is compared with
+	 * @return true if the first hand beats the second one; otherwise false
+	 */
+	public static boolean beats(int code, int otherCode) {
+		if (code == INVALID || otherCode == INVALID) {
+			return false;
+		}
+		int type = code >>> KEY_BITS;
+		int otherType = otherCode >>> KEY_BITS;
+		if (type == otherType) {
+			return (code & KEY_MASK) > (otherCode & KEY_MASK);
+		}
+		return HandType.valueOf(type).beats(HandType.valueOf(otherType));
+	}
+
+	/**
+	 * a method for converting a set of cards indexed by ordinal into a set indexed by Big Two strength.
+	 *
+	 * @param cardBits a long value where bit (suit * 13 + rank) is set for every card
+	 * @return a long value where bit BigTwoCard.strengthOf(card) is set for every card
+	 */
+	public static long toStrengths(long cardBits) {
+		long strengths = 0L;
+		while (cardBits != 0L) {
+			strengths |= 1L << BigTwoCard.strengthOf(Long.numberOfTrailingZeros(cardBits));
+			cardBits &= cardBits - 1;
+		}
+		return strengths;
+	}
+
+	/**
+	 * a method for classifying a set of cards indexed by Big Two strength.
+	 *
+	 * @param strengths a long value where bit BigTwoCard.strengthOf(card) is set for every card
+	 * @return the packed code of the strongest hand formed by exactly these cards, or INVALID
+	 */
+	public static int classifyStrengths(long strengths) {
+		int top = 63 - Long.numberOfLeadingZeros(strengths);
+		switch (Long.bitCount(strengths)) {
+		case 1:
+			return pack(HandType.SINGLE, top);
+		case 2:
+		case 3:
+			// all the cards must share the rank of the top card
+			if ((strengths >>> ((top >> 2) << 2)) << ((top >> 2) << 2) != strengths) {
+				return INVALID;
+			}
+			return pack(Long.bitCount(strengths) == 2 ? HandType.PAIR : HandType.TRIPLE, top);
+		case 5:
+			return classifyFiveCards(strengths, top);
+		default:
+			return INVALID;
+		}
+	}
+
+	/**
+	 * a method for classifying exactly five cards indexed by Big Two strength.
+	 *
+	 * @param strengths a long value with exactly five bits set
+	 * @param top the strength of the highest card
+	 * @return the packed code of the strongest five-card hand, or INVALID
+	 */
+	private static int classifyFiveCards(long strengths, int top) {
+		int rankMask = 0;
+		int suitMask = 0;
+		for (long bits = strengths; bits != 0L; bits &= bits - 1) {
+			int strength = Long.numberOfTrailingZeros(bits);
+			rankMask |= 1 << (strength >> 2);
+			suitMask |= 1 << (strength & 3);
+		}
+
+		boolean flush = Integer.bitCount(suitMask) == 1;
+		boolean straight = Integer.bitCount(rankMask) == 5
+				&& (rankMask >>> Integer.numberOfTrailingZeros(rankMask)) == 0x1F;
+
+		if (straight && flush) {
+			return pack(HandType.STRAIGHT_FLUSH, top);
+		}
+		if (Integer.bitCount(rankMask) == 2) {
+			// either four of a kind plus one card, or three of a kind plus a pair
+			for (int ranks = rankMask; ranks != 0; ranks &= ranks - 1) {
+				int rank = Integer.numberOfTrailingZeros(ranks);
+				int group = (int) (strengths >>> (rank << 2)) & 0xF;
+				int groupTop = (rank << 2) + 31 - Integer.numberOfLeadingZeros(group);
+				if (Integer.bitCount(group) == 4) {
+					return pack(HandType.QUAD, groupTop);
+				} else if (Integer.bitCount(group) == 3) {
+					return pack(HandType.FULL_HOUSE, groupTop);
+				}
+			}
+		}
+		if (flush) {
+			// flushes are compared by suit first and then by their top card
+			return pack(HandType.FLUSH, (Integer.numberOfTrailingZeros(suitMask) << 6) | top);
+		}
+		if (straight) {
+			return pack(HandType.STRAIGHT, top);
+		}
+		return INVALID;
+	}
+
+	/**
+	 * a method for packing a hand type and a comparison key into a code.
+	 *
+	 * @param type the type of the hand
+	 * @param key the comparison key of the hand
+	 * @return the packed code
+	 */
+	private static int pack(HandType type, int key) {
+		return (type.ordinal() << KEY_BITS) | key;
+	}
+
+	/**
+	 * a method for retrieving the hand type of the specified code.
+	 *
+	 * @param code a packed code other than INVALID
+	 * @return the hand type of the code
+	 */
+	public static HandType getType(int code) {
+		return HandType.valueOf(code >>> KEY_BITS);
+	}
+
+	/**
+	 * a method for retrieving the comparison key of the specified code.
+	 *
+	 * @param code a packed code other than INVALID
+	 * @return the comparison key of the code
+	 */
+	public static int getKey(int code) {
+		return code & KEY_MASK;
+	}
+}
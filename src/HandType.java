@@ -0,0 +1,127 @@
+/**
+ * The HandType enum is used to model the categories of legal hands in a Big Two card game. The
+ * constants are declared from the weakest to the strongest category of each size, and each of them
+ * knows its name (as returned by Hand.getType()), its number of cards and how to build the matching
+ * Hand subclass.
+ *
+ * @author DaveMatthew
+ *
+ */
+public enum HandType {
+	SINGLE("Single", 1),
+	PAIR("Pair", 2),
+	TRIPLE("Triple", 3),
+	STRAIGHT("Straight", 5),
+	FLUSH("Flush", 5),
+	FULL_HOUSE("FullHouse", 5),
+	QUAD("Quad", 5),
+	STRAIGHT_FLUSH("StraightFlush", 5);
+
+	/**
+	 * the hand types indexed by their ordinal.
+	 */
+	private static final HandType[] VALUES = values();
+
+	/**
+	 * the dominance table of the hand types: DOMINANCE[a][b] is true if any hand of type a beats
+	 * any hand of a different type b. Only five-card hands of different types can beat each other,
+	 * in the order Straight, Flush, FullHouse, Quad, StraightFlush.
+	 */
+	private static final boolean[][] DOMINANCE = new boolean[VALUES.length][VALUES.length];
+
+	static {
+		for (HandType a : VALUES) {
+			for (HandType b : VALUES) {
+				DOMINANCE[a.ordinal()][b.ordinal()] = a.size == 5 && b.size == 5 && a.ordinal() > b.ordinal();
+			}
+		}
+	}
+
+	/**
+	 * the name of the hand type.
+	 */
+	private final String name;
+
+	/**
+	 * the number of cards in a hand of this type.
+	 */
+	private final int size;
+
+	/**
+	 * a constructor for building a hand type with the specified name and number of cards.
+	 *
+	 * @param name the name of the hand type
+	 * @param size the number of cards in a hand of this type
+	 */
+	private HandType(String name, int size) {
+		this.name = name;
+		this.size = size;
+	}
+
+	/**
+	 * a method for retrieving the name of this hand type.
+	 *
+	 * @return a string equal to the simple name of the matching Hand subclass
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * a method for retrieving the number of cards in a hand of this type.
+	 *
+	 * @return the number of cards in a hand of this type
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * a method for checking if a hand of this type beats a hand of the specified different type.
+	 * Hands of the same type have to be compared by their cards instead.
+	 *
+	 * @param other the type of the other hand
+	 * @return true if this type dominates the other type; otherwise false
+	 */
+	public boolean beats(HandType other) {
+		return DOMINANCE[this.ordinal()][other.ordinal()];
+	}
+
+	/**
+	 * a method for retrieving the hand type with the specified ordinal.
+	 *
+	 * @param ordinal the ordinal of the hand type
+	 * @return the hand type with the specified ordinal
+	 */
+	public static HandType valueOf(int ordinal) {
+		return VALUES[ordinal];
+	}
+
+	/**
+	 * a method for building a hand of this type with the specified player and list of cards.
+	 *
+	 * @param player the specified player who play this hand
+	 * @param cards the list of cards
+	 * @return a Hand object of the subclass matching this type
+	 */
+	public Hand newHand(CardGamePlayer player, CardList cards) {
+		switch (this) {
+		case SINGLE:
+			return new Single(player, cards);
+		case PAIR:
+			return new Pair(player, cards);
+		case TRIPLE:
+			return new Triple(player, cards);
+		case STRAIGHT:
+			return new Straight(player, cards);
+		case FLUSH:
+			return new Flush(player, cards);
+		case FULL_HOUSE:
+			return new FullHouse(player, cards);
+		case QUAD:
+			return new Quad(player, cards);
+		default:
+			return new StraightFlush(player, cards);
+		}
+	}
+}
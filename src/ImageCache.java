@@ -0,0 +1,254 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * The ImageCache class is used to share the images of the Big Two GUI, i.e. the faces and the back
+ * of the cards, the avatars and the background of the table. Every image is decoded once, the first
+ * time it is asked for, and then kept for the whole process. The images are resources found on the
+ * classpath, shipped in the res directory, and the faces of the cards are all packed in a single image, cards.png, holding a row of
+ * 13 cards from the Ace to the King for every suit in the order of the suits. An image is also kept scaled to the size
+ * it is drawn at, as an image compatible with the screen, so that painting it is a plain copy. Only the
+ * last size of every image is kept: when a panel is resized, the image scaled to its previous size is
+ * dropped.
+ *
+ * @author DaveMatthew
+ */
+public final class ImageCache {
+	/**
+	 * the width of the images of the cards.
+	 */
+	public static final int CARD_WIDTH = 73;
+
+	/**
+	 * the height of the images of the cards.
+	 */
+	public static final int CARD_HEIGHT = 97;
+
+	/**
+	 * the file name of the background of the table.
+	 */
+	public static final String BACKGROUND_NAME = "bg.jpg";
+
+	/**
+	 * the file name of the back of the cards.
+	 */
+	private static final String BACK_NAME = "b.gif";
+
+	/**
+	 * the directory holding the image files, used when they are not found on the classpath, i.e. when 
+	 * the game is run from the project directory with only the classes on the classpath.
+	 */
+	private static final String DIRECTORY = "res/";
+
+	/**
+	 * the file name of the image holding the faces of all the cards.
+	 */
+	private static final String CARDS_NAME = "cards.png";
+
+	/**
+	 * the letters naming the suits in the file names of the cards, in the order of the suits.
+	 */
+	private static final char[] SUITS = {'d', 'c', 'h', 's'};
+
+	/**
+	 * the decoded images, by file name.
+	 */
+	private static final HashMap<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+
+	/**
+	 * the images scaled to the size they were last drawn at, by file name.
+	 */
+	private static final HashMap<String, BufferedImage> scaledImages = new HashMap<String, BufferedImage>();
+
+	/**
+	 * whether the faces of the cards have been cut out of the image holding them.
+	 */
+	private static boolean cardsLoaded = false;
+
+	private ImageCache() {
+	}
+
+	/**
+	 * a method for getting the name of the face of a card.
+	 *
+	 * @param suit the suit of the card
+	 * @param rank the rank of the card
+	 * @return the name of the image of the card
+	 */
+	public static String getCardName(int suit, int rank) {
+		return Integer.toString(rank+1) + SUITS[suit];
+	}
+
+	/**
+	 * a method for getting the file name of the avatar of a player.
+	 *
+	 * @param playerIdx the index of the player
+	 * @return the file name of the avatar
+	 */
+	public static String getAvatarName(int playerIdx) {
+		return "p" + playerIdx + ".png";
+	}
+
+	/**
+	 * a method for getting the image of the face of a card, at the size of a card.
+	 *
+	 * @param card the card
+	 * @return the image of the card
+	 */
+	public static Image getCard(Card card) {
+		loadCards();
+		return get(getCardName(card.getSuit(), card.getRank()), CARD_WIDTH, CARD_HEIGHT);
+	}
+
+	/**
+	 * a method for getting the image of the back of the cards, at the size of a card.
+	 *
+	 * @return the image of the back of the cards
+	 */
+	public static Image getCardBack() {
+		return get(BACK_NAME, CARD_WIDTH, CARD_HEIGHT);
+	}
+
+	/**
+	 * a method for decoding all the images of the GUI, so that none of them is read while painting.
+	 * The cards are also scaled, as they are always drawn at the same size.
+	 */
+	public static void loadAll() {
+		loadCards();
+		for (int i = 0; i<SUITS.length; i++) {
+			for (int j = 0; j<13; j++) {
+				get(getCardName(i, j), CARD_WIDTH, CARD_HEIGHT);
+			}
+		}
+		get(BACK_NAME, CARD_WIDTH, CARD_HEIGHT);
+		for (int i = 0; i<4; i++) {
+			get(getAvatarName(i));
+		}
+		get(BACKGROUND_NAME);
+	}
+
+	/**
+	 * a method for decoding all the images of the GUI in a background thread, e.g. while the player 
+	 * enters his/her name. A later call to loadAll() only decodes the images which are not ready yet.
+	 */
+	public static void preload() {
+		Thread loader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				loadAll();
+			}
+		}, "image-loader");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * a method for cutting the faces of the cards out of the image holding them. The faces share the
+	 * pixels of that image.
+	 */
+	private static synchronized void loadCards() {
+		if (cardsLoaded) {
+			return;
+		}
+		BufferedImage cards = read(CARDS_NAME);
+		if (cards.getWidth() >= 13*CARD_WIDTH && cards.getHeight() >= SUITS.length*CARD_HEIGHT) {
+			for (int i = 0; i<SUITS.length; i++) {
+				for (int j = 0; j<13; j++) {
+					images.put(getCardName(i, j), cards.getSubimage(j*CARD_WIDTH, i*CARD_HEIGHT, CARD_WIDTH, CARD_HEIGHT));
+				}
+			}
+		}
+		cardsLoaded = true;
+	}
+
+	/**
+	 * a method for getting the decoded image with the specified name. The image is only read the first
+	 * time it is asked for.
+	 *
+	 * @param name the name of the image
+	 * @return the image, which is empty if it cannot be read
+	 */
+	public static synchronized BufferedImage get(String name) {
+		BufferedImage image = images.get(name);
+		if (image == null) {
+			image = read(name);
+			images.put(name, image);
+		}
+		return image;
+	}
+
+	/**
+	 * a method for reading the image with the specified name from the classpath.
+	 *
+	 * @param name the name of the image
+	 * @return the image, which is empty if it cannot be read
+	 */
+	private static BufferedImage read(String name) {
+		BufferedImage image = null;
+		try {
+			URL url = ImageCache.class.getResource(name);
+			if (url != null) {
+				image = ImageIO.read(url);
+			}
+			else {
+				image = ImageIO.read(new File(DIRECTORY + name));
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		if (image == null) {
+			// remembers the missing image as an empty one, so that it is not read again
+			image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		}
+		return image;
+	}
+
+	/**
+	 * a method for getting the image with the specified name, scaled to the specified size. The scaled image
+	 * replaces the one scaled to the previous size, if any.
+	 *
+	 * @param name the name of the image
+	 * @param width the width to draw the image at
+	 * @param height the height to draw the image at
+	 * @return the scaled image
+	 */
+	public static synchronized BufferedImage get(String name, int width, int height) {
+		width = Math.max(1, width);
+		height = Math.max(1, height);
+		BufferedImage image = scaledImages.get(name);
+		if (image != null && image.getWidth() == width && image.getHeight() == height) {
+			return image;
+		}
+		BufferedImage original = get(name);
+		image = createImage(width, height, original.getTransparency());
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(original, 0, 0, width, height, null);
+		g.dispose();
+		scaledImages.put(name, image);
+		return image;
+	}
+
+	/**
+	 * a method for creating an image in the format of the screen, so that it is drawn without conversion.
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param transparency the transparency of the image
+	 * @return the image
+	 */
+	private static BufferedImage createImage(int width, int height, int transparency) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration();
+		return config.createCompatibleImage(width, height, transparency);
+	}
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * An interface for converting the messages of a network card game to and from
+ * bytes. A codec only deals with the payload of a frame; MessageFrame adds the
+ * length prefix. The server and its clients must use the same codec.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public interface MessageCodec {
+	/**
+	 * The system property selecting the default codec: "binary" (the default)
+	 * or "serialization".
+	 */
+	public static final String PROPERTY = "bigtwo.codec";
+
+	/**
+	 * Encodes the specified message.
+	 *
+	 * @param message
+	 *            the message to be encoded
+	 * @return the payload of the frame
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public byte[] encode(GameMessage message) throws IOException;
+
+	/**
+	 * Decodes a message.
+	 *
+	 * @param payload
+	 *            the array holding the payload of the frame
+	 * @param offset
+	 *            the offset of the payload in the array
+	 * @param length
+	 *            the length of the payload
+	 * @return the message
+	 * @throws IOException
+	 *             if the payload is not a valid message
+	 */
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException;
+
+	/**
+	 * Creates the codec with the specified name.
+	 *
+	 * @param name
+	 *            "binary" or "serialization", or null for the codec named by
+	 *            the PROPERTY system property (binary if it is not set)
+	 * @param deckFactory
+	 *            the factory of the decks received in START messages
+	 * @return a new codec
+	 * @throws IllegalArgumentException
+	 *             if the name is unknown
+	 */
+	public static MessageCodec create(String name, Supplier<? extends Deck> deckFactory) {
+		if (name == null) {
+			name = System.getProperty(PROPERTY, "binary");
+		}
+		if (name.equals("binary")) {
+			return new BinaryCodec(deckFactory);
+		} else if (name.equals("serialization")) {
+			return new SerializationCodec();
+		}
+		throw new IllegalArgumentException("Unknown codec: " + name);
+	}
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+/**
+ * This class is used to frame the messages of a network card game. Every
+ * message is encoded on its own by a MessageCodec and sent as a frame made of
+ * a 4-byte big-endian length followed by that many bytes of payload. As
+ * frames do not depend on each other, they can be written by a non-blocking
+ * transport one buffer at a time, and the same encoded frame can be sent to
+ * many clients. FramedMessageStream reads and writes frames on blocking
+ * streams.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public final class MessageFrame {
+	/**
+	 * The size of the length prefix of a frame.
+	 */
+	public static final int HEADER_SIZE = 4;
+	/**
+	 * The largest payload accepted by the decoder. A peer announcing a larger
+	 * frame is treated as corrupted.
+	 */
+	public static final int MAX_PAYLOAD_SIZE = 1 << 20;
+
+	private MessageFrame() {
+	}
+
+	/**
+	 * Encodes the specified message into a frame.
+	 *
+	 * @param codec
+	 *            the codec of the payload
+	 * @param message
+	 *            the message to be encoded
+	 * @return the frame, including its length prefix
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public static byte[] encode(MessageCodec codec, GameMessage message)
+			throws IOException {
+		byte[] payload = codec.encode(message);
+		int length = payload.length;
+		byte[] frame = new byte[HEADER_SIZE + length];
+		frame[0] = (byte) (length >>> 24);
+		frame[1] = (byte) (length >>> 16);
+		frame[2] = (byte) (length >>> 8);
+		frame[3] = (byte) length;
+		System.arraycopy(payload, 0, frame, HEADER_SIZE, length);
+		return frame;
+	}
+
+	/**
+	 * Checks the length announced by a frame header.
+	 *
+	 * @param length
+	 *            the length of the payload
+	 * @throws IOException
+	 *             if the length is out of range
+	 */
+	public static void checkLength(int length) throws IOException {
+		if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+			throw new StreamCorruptedException("Invalid frame length: " + length);
+		}
+	}
+}
@@ -0,0 +1,280 @@
+import java.util.ArrayList;
+
+/**
+ * The MoveGenerator class is used to list the legal moves of a player in a Big Two card game. It
+ * follows the same rules as BigTwo.checkMove(): the first hand of a game must contain the lowest
+ * card of the player, a player who played the last hand on the table may lead with any legal hand,
+ * and any other player must play a hand of the same size that beats the last hand.
+ * <p>
+ * Moves are streamed to a MoveConsumer as they are found, so a caller looking for a single move can
+ * stop early. Each move is reported as a bit mask of card ordinals (see CardSet) together with its
+ * packed HandClassifier code, and the generator reuses its buffers between calls, so listing the
+ * moves does not allocate. A generator is not thread-safe; use one per thread.
+ *
+ * @author DaveMatthew
+ *
+ */
+public class MoveGenerator {
+
+	/**
+	 * The MoveConsumer interface is used to receive the moves found by a MoveGenerator.
+	 *
+	 * @author DaveMatthew
+	 *
+	 */
+	public interface MoveConsumer {
+		/**
+		 * a method called for every legal move found.
+		 *
+		 * @param cardBits a long value where bit (suit * 13 + rank) is set for every card of the move
+		 * @param code the packed HandClassifier code of the move
+		 * @return true to keep generating moves, or false to stop
+		 */
+		public boolean accept(long cardBits, int code);
+	}
+
+	/**
+	 * the Big Two strengths of the cards being examined, in increasing order.
+	 */
+	private final int[] strengths = new int[CardSet.NUM_OF_CARDS];
+
+	/**
+	 * the ordinals of the cards being examined, parallel to strengths.
+	 */
+	private final int[] ordinals = new int[CardSet.NUM_OF_CARDS];
+
+	/**
+	 * the number of cards being examined.
+	 */
+	private int numOfCards;
+
+	/**
+	 * the code the moves have to beat, or HandClassifier.INVALID if any legal hand may be played.
+	 */
+	private int codeToBeat;
+
+	/**
+	 * the ordinal bit of the card every move has to contain, or 0 if there is no such card.
+	 */
+	private long requiredBit;
+
+	/**
+	 * the consumer receiving the moves of the current call.
+	 */
+	private MoveConsumer consumer;
+
+	/**
+	 * the number of moves found by the current call.
+	 */
+	private int numOfMoves;
+
+	/**
+	 * whether the consumer asked to stop.
+	 */
+	private boolean stopped;
+
+	/**
+	 * a method for generating the legal moves of the specified player against the hands on the table.
+	 *
+	 * @param player the player about to move
+	 * @param handsOnTable the list of hands played on the table so far
+	 * @param consumer the consumer receiving the moves
+	 * @return the number of moves passed to the consumer
+	 */
+	public int generate(CardGamePlayer player, ArrayList<Hand> handsOnTable, MoveConsumer consumer) {
+		Hand lastHand = handsOnTable.isEmpty() ? null : handsOnTable.get(handsOnTable.size() - 1);
+		return generate(player.getCardsInHand(), lastHand, lastHand != null && lastHand.getPlayer() == player,
+				consumer);
+	}
+
+	/**
+	 * a method for generating the legal moves from the specified cards.
+	 *
+	 * @param cards the cards held by the player about to move
+	 * @param lastHand the last hand played on the table, or null at the start of a game
+	 * @param lead whether the player played the last hand and may therefore play any legal hand
+	 * @param consumer the consumer receiving the moves
+	 * @return the number of moves passed to the consumer
+	 */
+	public int generate(CardList cards, Hand lastHand, boolean lead, MoveConsumer consumer) {
+		load(cards);
+		this.consumer = consumer;
+		this.numOfMoves = 0;
+		this.stopped = false;
+		this.requiredBit = 0L;
+		this.codeToBeat = HandClassifier.INVALID;
+
+		if (lastHand == null) {
+			// the first hand of the game must contain the lowest card
+			if (numOfCards > 0) {
+				this.requiredBit = 1L << ordinals[0];
+			}
+			generateAllSizes();
+		} else if (lead) {
+			generateAllSizes();
+		} else if (lastHand.isValid()) {
+			this.codeToBeat = lastHand.getCode();
+			generateSize(lastHand.size());
+		}
+
+		this.consumer = null;
+		return this.numOfMoves;
+	}
+
+	/**
+	 * a method for checking if the specified player has any legal move other than passing.
+	 *
+	 * @param player the player about to move
+	 * @param handsOnTable the list of hands played on the table so far
+	 * @return true if at least one legal move exists; otherwise false
+	 */
+	public boolean hasLegalMove(CardGamePlayer player, ArrayList<Hand> handsOnTable) {
+		return generate(player, handsOnTable, (cardBits, code) -> false) > 0;
+	}
+
+	/**
+	 * a method for converting a move into the indices of its cards in the specified list, as expected
+	 * by CardGame.makeMove().
+	 *
+	 * @param cardBits a long value where bit (suit * 13 + rank) is set for every card of the move
+	 * @param cards the list of cards held by the player
+	 * @return an array with the indices of the cards of the move, in increasing order
+	 */
+	public static int[] toIndices(long cardBits, CardList cards) {
+		int[] cardIdx = new int[Long.bitCount(cardBits)];
+		int count = 0;
+		for (int i = 0; i < cards.size() && count < cardIdx.length; i++) {
+			if ((cardBits & CardSet.maskOf(cards.getCard(i))) != 0L) {
+				cardIdx[count++] = i;
+			}
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * a method for copying the strengths and ordinals of the cards into the buffers, sorted by strength.
+	 *
+	 * @param cards the cards held by the player
+	 */
+	private void load(CardList cards) {
+		numOfCards = 0;
+		for (int i = 0; i < cards.size() && numOfCards < strengths.length; i++) {
+			Card card = cards.getCard(i);
+			int strength = BigTwoCard.strengthOf(card);
+			// insertion sort, the hand is usually sorted already
+			int j = numOfCards++;
+			while (j > 0 && strengths[j - 1] > strength) {
+				strengths[j] = strengths[j - 1];
+				ordinals[j] = ordinals[j - 1];
+				j--;
+			}
+			strengths[j] = strength;
+			ordinals[j] = card.getOrdinal();
+		}
+	}
+
+	/**
+	 * a method for generating the moves of every size.
+	 */
+	private void generateAllSizes() {
+		generateSize(1);
+		generateSize(2);
+		generateSize(3);
+		generateSize(5);
+	}
+
+	/**
+	 * a method for generating the moves with the specified number of cards.
+	 *
+	 * @param size the number of cards of the moves
+	 */
+	private void generateSize(int size) {
+		switch (size) {
+		case 1:
+			for (int a = 0; a < numOfCards && !stopped; a++) {
+				offer(1L << ordinals[a], 1L << strengths[a]);
+			}
+			break;
+		case 2:
+			// the cards are sorted by strength, so cards of the same rank are adjacent
+			for (int a = 0; a < numOfCards && !stopped; a++) {
+				for (int b = a + 1; b < numOfCards && sameRank(a, b) && !stopped; b++) {
+					offer((1L << ordinals[a]) | (1L << ordinals[b]), (1L << strengths[a]) | (1L << strengths[b]));
+				}
+			}
+			break;
+		case 3:
+			for (int a = 0; a < numOfCards && !stopped; a++) {
+				for (int b = a + 1; b < numOfCards && sameRank(a, b) && !stopped; b++) {
+					for (int c = b + 1; c < numOfCards && sameRank(a, c) && !stopped; c++) {
+						offer((1L << ordinals[a]) | (1L << ordinals[b]) | (1L << ordinals[c]),
+								(1L << strengths[a]) | (1L << strengths[b]) | (1L << strengths[c]));
+					}
+				}
+			}
+			break;
+		case 5:
+			generateFiveCards();
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * a method for generating the five-card moves by visiting every combination of five cards.
+	 */
+	private void generateFiveCards() {
+		int n = numOfCards;
+		for (int a = 0; a < n - 4 && !stopped; a++) {
+			long ba = 1L << ordinals[a], sa = 1L << strengths[a];
+			for (int b = a + 1; b < n - 3 && !stopped; b++) {
+				long bb = ba | (1L << ordinals[b]), sb = sa | (1L << strengths[b]);
+				for (int c = b + 1; c < n - 2 && !stopped; c++) {
+					long bc = bb | (1L << ordinals[c]), sc = sb | (1L << strengths[c]);
+					for (int d = c + 1; d < n - 1 && !stopped; d++) {
+						long bd = bc | (1L << ordinals[d]), sd = sc | (1L << strengths[d]);
+						for (int e = d + 1; e < n && !stopped; e++) {
+							offer(bd | (1L << ordinals[e]), sd | (1L << strengths[e]));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * a method for checking if the cards at the specified positions of the buffers share a rank.
+	 *
+	 * @param i the position of a card
+	 * @param j the position of another card
+	 * @return true if both cards have the same rank; otherwise false
+	 */
+	private boolean sameRank(int i, int j) {
+		return (strengths[i] >> 2) == (strengths[j] >> 2);
+	}
+
+	/**
+	 * a method for passing a candidate move to the consumer if it is legal.
+	 *
+	 * @param cardBits the ordinal bits of the candidate
+	 * @param strengthBits the strength bits of the candidate
+	 */
+	private void offer(long cardBits, long strengthBits) {
+		if ((cardBits & requiredBit) != requiredBit) {
+			return;
+		}
+		int code = (Long.bitCount(cardBits) == 5) ? HandClassifier.classify(cardBits)
+				: HandClassifier.classifyStrengths(strengthBits);
+		if (code == HandClassifier.INVALID) {
+			return;
+		}
+		if (codeToBeat != HandClassifier.INVALID && !HandClassifier.beats(code, codeToBeat)) {
+			return;
+		}
+		numOfMoves++;
+		if (!consumer.accept(cardBits, code)) {
+			stopped = true;
+		}
+	}
+}
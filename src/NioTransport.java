@@ -0,0 +1,589 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class is used to serve the clients of a card game server with
+ * non-blocking sockets. A small, fixed number of event loops, each owning a
+ * Selector, accept, read and write for all the connections, so an idle client
+ * costs a few buffers instead of a thread. Incoming frames (see MessageFrame)
+ * are passed to the server on the event loop of their connection; outgoing
+ * messages wait in the OutboundQueue of their connection and are written when
+ * the socket is writable, so a slow client never blocks an event loop.
+ * <p>
+ * A message is encoded once (see EncodedMessage) and its frame is shared by
+ * every connection it is sent to. Sending a message only queues it: each
+ * connection is flushed at most once per pass of its event loop, with a
+ * single gathering write of all the frames queued meanwhile, so a broadcast
+ * followed by a few more messages costs one system call per client.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class NioTransport {
+	// The size of the read buffer of a new connection
+	private static final int READ_BUFFER_SIZE = 4096;
+	// The maximum number of frames passed to a single gathering write
+	private static final int MAX_FRAMES_PER_WRITE = 64;
+
+	// The server receiving the connections and messages
+	private final CardGameServer server;
+	// The event loops; the first one also accepts the connections
+	private final EventLoop[] eventLoops;
+	// The event loop receiving the next connection
+	private int nextEventLoop = 0;
+
+	/**
+	 * Creates and returns an instance of the NioTransport class.
+	 *
+	 * @param server
+	 *            the server receiving the connections and messages
+	 * @param numOfEventLoops
+	 *            the number of event loop threads
+	 */
+	public NioTransport(CardGameServer server, int numOfEventLoops) {
+		this.server = server;
+		this.eventLoops = new EventLoop[Math.max(1, numOfEventLoops)];
+	}
+
+	/**
+	 * Listens at the specified port and runs the first event loop on the
+	 * calling thread, until the transport fails.
+	 *
+	 * @param port
+	 *            the port at which the server listens
+	 * @throws IOException
+	 *             if the port cannot be bound
+	 */
+	public void start(int port) throws IOException {
+		for (int i = 0; i < eventLoops.length; i++) {
+			eventLoops[i] = new EventLoop();
+		}
+		ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port), 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(eventLoops[0].selector, SelectionKey.OP_ACCEPT);
+		server.println("Starts up the server at localhost:"
+				+ serverChannel.socket().getLocalPort() + " ("
+				+ eventLoops.length + " event loops)");
+
+		for (int i = 1; i < eventLoops.length; i++) {
+			Thread t = new Thread(eventLoops[i], "event-loop-" + i);
+			t.setDaemon(true);
+			t.start();
+		}
+		try {
+			eventLoops[0].run();
+		} finally {
+			serverChannel.close();
+		}
+	}
+
+	/**
+	 * Accepts the pending connections and hands them to the event loops in
+	 * turn.
+	 *
+	 * @param serverChannel
+	 *            the listening channel
+	 */
+	private void accept(ServerSocketChannel serverChannel) {
+		SocketChannel channel;
+		try {
+			while ((channel = serverChannel.accept()) != null) {
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				EventLoop loop = eventLoops[nextEventLoop];
+				nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+				loop.register(new NioConnection(channel, loop));
+			}
+		} catch (IOException ex) {
+			server.println("Error in accepting a connection");
+			if (!server.silentMode) ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * This inner class is used to run a Selector on its own thread.
+	 *
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class EventLoop implements Runnable {
+		// The selector of this event loop
+		private final Selector selector;
+		// Tasks submitted by other threads, run by the event loop
+		private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+		// The thread running this event loop
+		private Thread thread;
+		// The connections to be flushed at the end of the current pass
+		private final ArrayList<NioConnection> flushes = new ArrayList<NioConnection>();
+
+		/**
+		 * Creates and returns an instance of the EventLoop class.
+		 *
+		 * @throws IOException
+		 *             if the selector cannot be opened
+		 */
+		public EventLoop() throws IOException {
+			selector = Selector.open();
+		}
+
+		/**
+		 * Returns true if called on the thread of this event loop.
+		 *
+		 * @return true if called on the thread of this event loop
+		 */
+		public boolean inEventLoop() {
+			return Thread.currentThread() == thread;
+		}
+
+		/**
+		 * Runs the specified task on this event loop.
+		 *
+		 * @param task
+		 *            the task
+		 */
+		public void execute(Runnable task) {
+			if (inEventLoop()) {
+				task.run();
+			} else {
+				tasks.add(task);
+				selector.wakeup();
+			}
+		}
+
+		/**
+		 * Runs the specified task on this event loop once the current task is
+		 * done, even if called on the event loop.
+		 *
+		 * @param task
+		 *            the task
+		 */
+		public void submit(Runnable task) {
+			tasks.add(task);
+			selector.wakeup();
+		}
+
+		/**
+		 * Flushes the specified connection at the end of the current pass of
+		 * this event loop, after the other messages of the pass are queued.
+		 *
+		 * @param connection
+		 *            the connection
+		 */
+		public void scheduleFlush(final NioConnection connection) {
+			if (inEventLoop()) {
+				flushes.add(connection);
+			} else {
+				submit(new Runnable() {
+					public void run() {
+						flushes.add(connection);
+					}
+				});
+			}
+		}
+
+		/**
+		 * Registers a new connection with this event loop and adds it to the
+		 * server.
+		 *
+		 * @param connection
+		 *            the new connection
+		 */
+		public void register(final NioConnection connection) {
+			execute(new Runnable() {
+				public void run() {
+					try {
+						connection.key = connection.channel.register(selector,
+								SelectionKey.OP_READ, connection);
+					} catch (ClosedChannelException ex) {
+						return;
+					}
+					if (server.addConnection(connection) < 0) {
+						// Max. no. of players reached
+						connection.registered = false;
+						server.println("Server is full: cannot establish a connection with a client at "
+								+ connection.getRemoteSocketAddress());
+						connection.sendQuietly(new CardGameMessage(
+								CardGameMessage.FULL, -1, null));
+						connection.close();
+					}
+				}
+			});
+		}
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			thread = Thread.currentThread();
+			while (selector.isOpen()) {
+				try {
+					selector.select();
+				} catch (IOException ex) {
+					server.println("Error in selecting the ready connections");
+					if (!server.silentMode) ex.printStackTrace();
+					return;
+				}
+
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					task.run();
+				}
+
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept((ServerSocketChannel) key.channel());
+						continue;
+					}
+					NioConnection connection = (NioConnection) key.attachment();
+					if (key.isReadable()) {
+						connection.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.flush();
+					}
+				}
+
+				// writes the messages queued during this pass
+				for (int i = 0; i < flushes.size(); i++) {
+					flushes.get(i).flush();
+				}
+				flushes.clear();
+			}
+		}
+	} // EventLoop
+
+	/**
+	 * This inner class is used to model a non-blocking connection to a
+	 * client.
+	 *
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class NioConnection extends CardGameConnection {
+		// The channel of this connection
+		private final SocketChannel channel;
+		// The event loop of this connection
+		private final EventLoop loop;
+		// The address of the client, kept for logging after the channel closes
+		private final SocketAddress remoteAddress;
+		// The messages waiting to be written
+		private final OutboundQueue outbound = server.newOutboundQueue();
+		// The frames being written, from batchStart to batchEnd, guarded by
+		// this connection
+		private final ByteBuffer[] batch = new ByteBuffer[MAX_FRAMES_PER_WRITE];
+		private int batchStart = 0;
+		private int batchEnd = 0;
+		// The key of the channel, set by the event loop
+		private SelectionKey key;
+		// The partially read frames, in read mode between reads
+		private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		// Whether OP_WRITE has been requested for the queued frames
+		private boolean writePending = false;
+		// Whether the event loop is to flush this connection
+		private boolean flushScheduled = false;
+		// Whether close() has been called
+		private boolean closing = false;
+		// Whether the server holds this connection
+		private boolean registered = true;
+
+		/**
+		 * Creates and returns an instance of the NioConnection class.
+		 *
+		 * @param channel
+		 *            the channel of the connection
+		 * @param loop
+		 *            the event loop of the connection
+		 */
+		public NioConnection(SocketChannel channel, EventLoop loop) {
+			this.channel = channel;
+			this.loop = loop;
+			this.remoteAddress = channel.socket().getRemoteSocketAddress();
+			readBuffer.flip();
+		}
+
+		public SocketAddress getRemoteSocketAddress() {
+			return remoteAddress;
+		}
+
+		/**
+		 * Queues the specified message. The event loop writes the frames
+		 * queued during its current pass together, and the rest when the
+		 * socket becomes writable.
+		 */
+		public void sendMessage(EncodedMessage message) throws IOException {
+			boolean schedule;
+			synchronized (this) {
+				if (closing) {
+					return;
+				}
+				if (!outbound.offer(message)) {
+					closing = true;
+					clearBatch();
+					// removes the connection once the caller is done with
+					// its table
+					loop.submit(new Runnable() {
+						public void run() {
+							fail(null);
+						}
+					});
+					throw new IOException("Outbound queue full, disconnects the client");
+				}
+				// a pending write is resumed by OP_WRITE
+				schedule = !writePending && !flushScheduled;
+				if (schedule) {
+					flushScheduled = true;
+				}
+			}
+			if (schedule) {
+				loop.scheduleFlush(this);
+			}
+		}
+
+		public int getQueueDepth() {
+			return outbound.size();
+		}
+
+		/**
+		 * Queues the specified message, ignoring the errors.
+		 *
+		 * @param message
+		 *            the message to be sent
+		 */
+		private void sendQuietly(CardGameMessage message) {
+			try {
+				sendMessage(EncodedMessage.encode(server.getCodec(), message));
+			} catch (IOException ex) {
+				if (!server.silentMode) ex.printStackTrace();
+			}
+		}
+
+		public void close() {
+			synchronized (this) {
+				if (closing) {
+					return;
+				}
+				closing = true;
+				if (writePending || flushScheduled) {
+					// closes once flush() has written the queued frames
+					return;
+				}
+			}
+			loop.execute(new Runnable() {
+				public void run() {
+					closeNow();
+				}
+			});
+		}
+
+		/**
+		 * Writes the queued frames, as many at a time as a gathering write
+		 * takes, and asks the event loop to watch the socket if some of them
+		 * do not fit. Must hold the lock of this connection.
+		 */
+		private void writeQueued() {
+			try {
+				while (true) {
+					fillBatch();
+					if (batchStart == batchEnd) {
+						break;
+					}
+					channel.write(batch, batchStart, batchEnd - batchStart);
+					while (batchStart < batchEnd && !batch[batchStart].hasRemaining()) {
+						batch[batchStart++] = null;
+					}
+					if (batchStart < batchEnd) {
+						// the socket buffer is full
+						break;
+					}
+				}
+			} catch (IOException ex) {
+				outbound.clear();
+				clearBatch();
+				loop.submit(new Runnable() {
+					public void run() {
+						fail(null);
+					}
+				});
+				return;
+			}
+			boolean pending = batchStart < batchEnd || !outbound.isEmpty();
+			if (pending != writePending) {
+				writePending = pending;
+				final int ops = pending ? SelectionKey.OP_READ
+						| SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+				loop.execute(new Runnable() {
+					public void run() {
+						if (key != null && key.isValid()) {
+							key.interestOps(ops);
+						}
+					}
+				});
+			}
+		}
+
+		/**
+		 * Moves the frames partially written to the front of the batch, and
+		 * fills the rest of it with queued frames. The frames are wrapped,
+		 * not copied, as they are shared with the other connections. Must
+		 * hold the lock of this connection.
+		 */
+		private void fillBatch() {
+			if (batchStart > 0) {
+				System.arraycopy(batch, batchStart, batch, 0, batchEnd - batchStart);
+				Arrays.fill(batch, batchEnd - batchStart, batchEnd, null);
+				batchEnd -= batchStart;
+				batchStart = 0;
+			}
+			while (batchEnd < batch.length) {
+				EncodedMessage message = outbound.poll();
+				if (message == null) {
+					break;
+				}
+				batch[batchEnd++] = ByteBuffer.wrap(message.getFrame());
+			}
+		}
+
+		/**
+		 * Drops the frames being written. Must hold the lock of this
+		 * connection.
+		 */
+		private void clearBatch() {
+			Arrays.fill(batch, null);
+			batchStart = 0;
+			batchEnd = 0;
+		}
+
+		/**
+		 * Writes the queued frames, at the end of a pass of the event loop or
+		 * when the socket becomes writable. Called by the event loop.
+		 */
+		private void flush() {
+			boolean close;
+			synchronized (this) {
+				flushScheduled = false;
+				writeQueued();
+				close = closing && !writePending;
+			}
+			if (close) {
+				closeNow();
+			}
+		}
+
+		/**
+		 * Reads the available bytes and passes every complete frame to the
+		 * server. Called by the event loop.
+		 */
+		private void read() {
+			try {
+				readBuffer.compact();
+				int n = channel.read(readBuffer);
+				readBuffer.flip();
+				if (n < 0) {
+					fail(null);
+					return;
+				}
+				while (readBuffer.remaining() >= MessageFrame.HEADER_SIZE) {
+					int length = readBuffer.getInt(readBuffer.position());
+					MessageFrame.checkLength(length);
+					int frameSize = MessageFrame.HEADER_SIZE + length;
+					if (readBuffer.remaining() < frameSize) {
+						if (frameSize > readBuffer.capacity()) {
+							// grows the buffer to hold the whole frame
+							ByteBuffer larger = ByteBuffer.allocate(frameSize);
+							larger.put(readBuffer);
+							larger.flip();
+							readBuffer = larger;
+						}
+						break;
+					}
+					int offset = readBuffer.arrayOffset() + readBuffer.position()
+							+ MessageFrame.HEADER_SIZE;
+					GameMessage message = server.getCodec().decode(
+							readBuffer.array(), offset, length);
+					readBuffer.position(readBuffer.position() + frameSize);
+					if (!(message instanceof CardGameMessage)) {
+						throw new IOException("Wrong message class: "
+								+ message.getClass().getName());
+					}
+					if (registered) {
+						server.println("Message received from "
+								+ remoteAddress);
+						server.parseMessage(this, (CardGameMessage) message);
+					}
+				}
+				if (!readBuffer.hasRemaining()
+						&& readBuffer.capacity() > READ_BUFFER_SIZE) {
+					// releases the buffer grown for a large frame
+					readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+					readBuffer.flip();
+				}
+			} catch (IOException ex) {
+				fail(ex);
+			} catch (RuntimeException ex) {
+				// a message the server could not handle only costs its own
+				// connection, not the event loop shared with other clients
+				fail(ex);
+			}
+		}
+
+		/**
+		 * Removes this connection from the server after a connection loss or
+		 * an error in handling its messages. Called by the event loop.
+		 *
+		 * @param ex
+		 *            the error, or null if the client closed the connection
+		 */
+		private void fail(Exception ex) {
+			if (registered) {
+				server.println("Error in receiving messages from the client at "
+						+ remoteAddress);
+				if (ex != null && !server.silentMode) ex.printStackTrace();
+				// possible connection loss, removes the connection
+				registered = false;
+				server.removeConnection(this);
+			}
+			synchronized (this) {
+				closing = true;
+				outbound.clear();
+				clearBatch();
+			}
+			closeNow();
+		}
+
+		/**
+		 * Closes the channel. Called by the event loop.
+		 */
+		private void closeNow() {
+			if (key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				server.println("Error in closing the client socket at "
+						+ remoteAddress);
+				if (!server.silentMode) ex.printStackTrace();
+			}
+			if (registered) {
+				registered = false;
+				server.removeConnection(this);
+			}
+		}
+	} // NioConnection
+}
@@ -0,0 +1,290 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to model the bounded queue of the messages waiting to be
+ * sent to a client. When the queue is full, its Policy decides what to give
+ * up: the chat messages, the messages made obsolete by the new one, or the
+ * client itself. A client that cannot keep up is disconnected rather than
+ * allowed to grow the memory of the server.
+ * <p>
+ * The queue is guarded by a ReentrantLock rather than by its monitor, so that
+ * a virtual thread waiting in take() releases its carrier thread.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class OutboundQueue {
+	/**
+	 * The policies for a full queue. Each policy falls back on the previous
+	 * ones: a queue that is still full after coalescing drops the chat, and a
+	 * queue that is still full after dropping the chat disconnects the
+	 * client.
+	 */
+	public enum Policy {
+		/**
+		 * Disconnects the client as soon as its queue is full.
+		 */
+		DISCONNECT,
+		/**
+		 * Drops the queued chat (MSG) messages, or the new one if it is a
+		 * chat message.
+		 */
+		DROP_CHAT,
+		/**
+		 * Drops the queued messages superseded by the new one: a START makes
+		 * the messages of the previous game obsolete, a SNAPSHOT replaces the
+		 * MOVE messages leading to it, and a PLAYER_LIST replaces the previous
+		 * list.
+		 */
+		COALESCE
+	}
+
+	/**
+	 * This class is used to count the messages given up by a set of queues.
+	 *
+	 * @author Kenneth Wong
+	 *
+	 */
+	public static class Stats {
+		// number of messages dropped or coalesced
+		private final AtomicLong numOfDropped = new AtomicLong();
+		// number of clients disconnected for a full queue
+		private final AtomicLong numOfEvicted = new AtomicLong();
+
+		/**
+		 * Returns the number of messages dropped or coalesced.
+		 *
+		 * @return the number of messages dropped or coalesced
+		 */
+		public long getNumOfDropped() {
+			return numOfDropped.get();
+		}
+
+		/**
+		 * Returns the number of clients disconnected for a full queue.
+		 *
+		 * @return the number of clients disconnected
+		 */
+		public long getNumOfEvicted() {
+			return numOfEvicted.get();
+		}
+	}
+
+	// The messages waiting to be sent
+	private final ArrayDeque<EncodedMessage> messages = new ArrayDeque<EncodedMessage>();
+	// The maximum number of queued messages
+	private final int capacity;
+	// The policy for a full queue
+	private final Policy policy;
+	// The counters shared with the other queues of the server
+	private final Stats stats;
+	// The lock guarding the messages and the closed flag
+	private final ReentrantLock lock = new ReentrantLock();
+	// Signalled when a message is queued or the queue is closed
+	private final Condition notEmpty = lock.newCondition();
+	// Whether no more messages are accepted
+	private boolean closed = false;
+
+	/**
+	 * Creates and returns an instance of the OutboundQueue class.
+	 *
+	 * @param capacity
+	 *            the maximum number of queued messages
+	 * @param policy
+	 *            the policy for a full queue
+	 * @param stats
+	 *            the counters to update
+	 */
+	public OutboundQueue(int capacity, Policy policy, Stats stats) {
+		this.capacity = Math.max(1, capacity);
+		this.policy = policy;
+		this.stats = stats;
+	}
+
+	/**
+	 * Adds the specified message to the queue, applying the policy if the
+	 * queue is full.
+	 *
+	 * @param message
+	 *            the message to be sent
+	 * @return true if the message is queued or deliberately dropped; false if
+	 *         the client has to be disconnected (the queue is then closed)
+	 */
+	public boolean offer(EncodedMessage message) {
+		lock.lock();
+		try {
+			if (closed) {
+				return false;
+			}
+			if (messages.size() >= capacity && policy == Policy.COALESCE) {
+				coalesce(message.getType());
+			}
+			if (messages.size() >= capacity && policy != Policy.DISCONNECT) {
+				if (message.getType() == CardGameMessage.MSG) {
+					stats.numOfDropped.incrementAndGet();
+					return true;
+				}
+				removeAll(CardGameMessage.MSG);
+			}
+			if (messages.size() >= capacity) {
+				stats.numOfEvicted.incrementAndGet();
+				closed = true;
+				messages.clear();
+				notEmpty.signalAll();
+				return false;
+			}
+			messages.add(message);
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops the queued messages superseded by a new message of the specified
+	 * type.
+	 *
+	 * @param type
+	 *            the type of the new message
+	 */
+	private void coalesce(int type) {
+		if (type == CardGameMessage.START) {
+			removeAll(CardGameMessage.START);
+			removeAll(CardGameMessage.MOVE);
+			removeAll(CardGameMessage.ILLEGAL);
+		} else if (type == CardGameMessage.SNAPSHOT) {
+			// the queue follows its connection when changeTable() moves it, so
+			// a MOVE queued before the snapshot may come from another table;
+			// the snapshot holds the state reached by the MOVEs of its own
+			// table, and the MOVEs of a previous table are of no use anyway,
+			// as the PLAYER_LIST of the new table makes the client start over
+			removeAll(CardGameMessage.MOVE);
+		} else if (type == CardGameMessage.PLAYER_LIST) {
+			removeAll(CardGameMessage.PLAYER_LIST);
+		}
+	}
+
+	/**
+	 * Drops the queued messages of the specified type.
+	 *
+	 * @param type
+	 *            the type of the messages
+	 */
+	private void removeAll(int type) {
+		Iterator<EncodedMessage> it = messages.iterator();
+		while (it.hasNext()) {
+			if (it.next().getType() == type) {
+				it.remove();
+				stats.numOfDropped.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns the next message.
+	 *
+	 * @return the next message, or null if the queue is empty
+	 */
+	public EncodedMessage poll() {
+		lock.lock();
+		try {
+			return messages.poll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and returns the next message, waiting for one if the queue is
+	 * empty.
+	 *
+	 * @return the next message, or null once the queue is closed and empty
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	public EncodedMessage take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (messages.isEmpty() && !closed) {
+				notEmpty.await();
+			}
+			return messages.poll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the queue. The messages already queued can still be taken.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the queue and drops its messages.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			closed = true;
+			messages.clear();
+			notEmpty.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns true if the queue is closed.
+	 *
+	 * @return true if the queue is closed
+	 */
+	public boolean isClosed() {
+		lock.lock();
+		try {
+			return closed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of queued messages.
+	 *
+	 * @return the depth of the queue
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return messages.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns true if no message is queued.
+	 *
+	 * @return true if the queue is empty
+	 */
+	public boolean isEmpty() {
+		lock.lock();
+		try {
+			return messages.isEmpty();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -17,36 +17,15 @@ public class Pair extends Hand {
 	 */
 	public Pair(CardGamePlayer player, CardList cards) {
 		super(player, cards);
-		this.sort();
 	}
 	
 	/**
-	 * a method for returning a string specifying the type of this hand.
+	 * a method for retrieving the category of this hand.
 	 * 
-	 * @return string that specify the type of this hand
+	 * @return the HandType of this hand
 	 */
-	public String getType() {
-		if (this.isValid() == true) {
-			return "Pair";
-		}
-		return null;
-	}
-	
-	/**
-	 * a method for checking if this is a valid hand.
-	 * 
-	 * @return boolean value that specify whether the hand is valid or not
-	 */
-	public boolean isValid() {
-		if (this.size() != 2) {
-			return false;
-		} else {
-			if (this.getCard(0).getRank() != this.getCard(1).getRank()) {
-				return false;
-			} else {
-				return true;
-			}
-		}
+	public HandType getHandType() {
+		return HandType.PAIR;
 	}
 
 }
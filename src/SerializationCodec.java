@@ -0,0 +1,41 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * This class is used to encode the messages of a network card game with Java
+ * serialization. Every payload is a standalone serialization stream, so it
+ * carries the class descriptors of the whole message; BinaryCodec is much
+ * more compact.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class SerializationCodec implements MessageCodec {
+
+	public byte[] encode(GameMessage message) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		ObjectOutputStream oostream = new ObjectOutputStream(bytes);
+		oostream.writeObject(message);
+		oostream.close();
+		return bytes.toByteArray();
+	}
+
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException {
+		ObjectInputStream oistream = new ObjectInputStream(
+				new ByteArrayInputStream(payload, offset, length));
+		try {
+			Object message = oistream.readObject();
+			if (!(message instanceof GameMessage)) {
+				throw new StreamCorruptedException("Not a message: " + message);
+			}
+			return (GameMessage) message;
+		} catch (ClassNotFoundException ex) {
+			throw new IOException(ex);
+		}
+	}
+}
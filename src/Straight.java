@@ -17,66 +17,15 @@ public class Straight extends Hand {
 	 */
 	public Straight(CardGamePlayer player, CardList cards) {
 		super(player, cards);
-		this.sort();
 	}
 	
 	/**
-	 * a method for returning a string specifying the type of this hand.
+	 * a method for retrieving the category of this hand.
 	 * 
-	 * @return string that specify the type of this hand
+	 * @return the HandType of this hand
 	 */
-	public String getType() {
-		if (this.isValid() == true) {
-			return "Straight";
-		}
-		return null;
-	}
-	
-	/**
-	 * a method for checking if this is a valid hand.
-	 * 
-	 * @return boolean value that specify whether the hand is valid or not
-	 */
-	public boolean isValid() {
-		if (this.size() != 5) {
-			return false;
-		} else {
-			int rankCard1;
-			int rankCard2;
-			for (int i = 0; i < 4; i++) {
-				rankCard1 = this.getCard(i).getRank();
-				rankCard2 = this.getCard(i+1).getRank();
-				
-				if (rankCard1 < 2) {
-					rankCard1 += 13;
-				}
-				
-				if (rankCard2 < 2) {
-					rankCard2 += 13;
-				}
-				
-				if (rankCard1 + 1 != rankCard2) {
-					return false;
-				}
-			}
-			return true;
-		}
-	}
-	
-	/**
-	 * a method for checking if this hand beats a specified hand.
-	 * 
-	 * @param hand the hand that wants to be compared
-	 * @return boolean value that specify whether this hand beats the hand in the argument
-	 */
-	public boolean beats(Hand hand) {
-		if (hand == null || !hand.isValid() || !this.isValid()) {
-			return false;
-		} else if (this.getType() == hand.getType()) {
-			return (this.getTopCard().compareTo(hand.getTopCard()) > 0);
-		} else {
-			return false;
-		}
+	public HandType getHandType() {
+		return HandType.STRAIGHT;
 	}
 
 }
@@ -0,0 +1,142 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests that the messages of the game survive a round trip through the
+ * BinaryCodec, and that malformed payloads are rejected.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class BinaryCodecTest {
+	private final BinaryCodec codec = new BinaryCodec(BigTwoDeck::new);
+
+	/**
+	 * Encodes and decodes the specified message, and checks its header.
+	 *
+	 * @param message
+	 *            the message
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the message cannot be encoded or decoded
+	 */
+	private GameMessage roundTrip(GameMessage message) throws IOException {
+		byte[] payload = codec.encode(message);
+		GameMessage decoded = codec.decode(payload, 0, payload.length);
+		assertEquals(message.getType(), decoded.getType());
+		assertEquals(message.getPlayerID(), decoded.getPlayerID());
+		assertEquals(message.getSequence(), decoded.getSequence());
+		return decoded;
+	}
+
+	@Test
+	public void testNullData() throws IOException {
+		assertNull(roundTrip(new CardGameMessage(CardGameMessage.READY, -1,
+				null)).getData());
+	}
+
+	@Test
+	public void testStrings() throws IOException {
+		assertEquals("pé ♠", roundTrip(new CardGameMessage(
+				CardGameMessage.JOIN, 2, "pé ♠")).getData());
+		assertEquals("", roundTrip(new CardGameMessage(CardGameMessage.MSG, 0,
+				"")).getData());
+		String[] names = { "alice", null, "", "東" };
+		assertArrayEquals(names, (String[]) roundTrip(new CardGameMessage(
+				CardGameMessage.PLAYER_LIST, 3, names)).getData());
+	}
+
+	@Test
+	public void testIndices() throws IOException {
+		// increasing indices are sent as a bit mask, the others as a list
+		int[][] moves = { {}, { 0 }, { 0, 3, 12 }, { 62 }, { 63 }, { 5, 2 },
+				{ 1, 1 }, { -1, 4 } };
+		for (int[] move : moves) {
+			assertArrayEquals(move, (int[]) roundTrip(new CardGameMessage(
+					CardGameMessage.MOVE, 1, move)).getData());
+		}
+	}
+
+	@Test
+	public void testNumbers() throws IOException {
+		assertEquals(Integer.valueOf(-5), roundTrip(new CardGameMessage(
+				CardGameMessage.RESYNC, -1, Integer.valueOf(-5))).getData());
+		assertEquals(Long.valueOf(Long.MIN_VALUE), roundTrip(new CardGameMessage(
+				CardGameMessage.SESSION, 0, Long.valueOf(Long.MIN_VALUE)))
+				.getData());
+		assertEquals(Long.valueOf(0x7654321076543210L), roundTrip(
+				new CardGameMessage(CardGameMessage.RESUME, 0, Long
+						.valueOf(0x7654321076543210L))).getData());
+	}
+
+	@Test
+	public void testSequence() throws IOException {
+		CardGameMessage message = new CardGameMessage(CardGameMessage.SNAPSHOT,
+				3, new int[] { 13, 12, 0 });
+		message.setSequence(Integer.MAX_VALUE);
+		roundTrip(message);
+		message.setSequence(1);
+		roundTrip(message);
+	}
+
+	@Test
+	public void testDeck() throws IOException {
+		BigTwoDeck deck = new BigTwoDeck();
+		deck.shuffle();
+		Deck decoded = (Deck) roundTrip(new CardGameMessage(
+				CardGameMessage.START, -1, deck)).getData();
+		assertTrue(decoded instanceof BigTwoDeck);
+		assertEquals(deck.size(), decoded.size());
+		for (int i = 0; i < deck.size(); i++) {
+			// the cards are the canonical instances, in the same order
+			assertSame(deck.getCard(i), decoded.getCard(i));
+		}
+	}
+
+	@Test
+	public void testVersion1() throws IOException {
+		// version, READY, playerID -1, TAG_NULL, without a sequence number
+		byte[] payload = { 1, CardGameMessage.READY, 1, 0 };
+		GameMessage message = codec.decode(payload, 0, payload.length);
+		assertEquals(CardGameMessage.READY, message.getType());
+		assertEquals(-1, message.getPlayerID());
+		assertEquals(0, message.getSequence());
+		assertNull(message.getData());
+	}
+
+	@Test
+	public void testOffset() throws IOException {
+		byte[] payload = codec.encode(new CardGameMessage(CardGameMessage.MSG,
+				1, "hello"));
+		byte[] frame = new byte[payload.length + 7];
+		System.arraycopy(payload, 0, frame, 4, payload.length);
+		assertEquals("hello", codec.decode(frame, 4, payload.length).getData());
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownVersion() throws IOException {
+		byte[] payload = codec.encode(new CardGameMessage(CardGameMessage.READY,
+				-1, null));
+		payload[0] = (byte) (BinaryCodec.VERSION + 1);
+		codec.decode(payload, 0, payload.length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] payload = codec.encode(new CardGameMessage(CardGameMessage.MSG,
+				-1, "truncated"));
+		codec.decode(payload, 0, payload.length - 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownData() throws IOException {
+		codec.encode(new CardGameMessage(CardGameMessage.MSG, -1, new Object()));
+	}
+}
@@ -0,0 +1,251 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the recovery of a Big Two server: the resynchronization of a client
+ * that has missed changes of state, and the resumption of a seat after a lost
+ * connection. Every test runs a server with the blocking transport and four
+ * clients on the loopback interface.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class CardGameServerTest {
+	// The time a client waits for a message, in ms
+	private static final int TIMEOUT = 5000;
+
+	// The clients opened by the test
+	private final List<Client> clients = new ArrayList<Client>();
+	// The names of the players, by seat
+	private final String[] names = new String[4];
+	// The port of the server
+	private int port;
+
+	/**
+	 * This class is used to model a client reading the messages sent by the
+	 * server.
+	 */
+	private class Client {
+		private final Socket socket;
+		private final FramedMessageStream stream;
+
+		Client() throws IOException {
+			socket = new Socket("localhost", port);
+			socket.setSoTimeout(TIMEOUT);
+			stream = new FramedMessageStream(socket, MessageCodec.create(
+					"binary", BigTwoDeck::new));
+			clients.add(this);
+		}
+
+		void send(int type, Object data) throws IOException {
+			stream.writeMessage(new CardGameMessage(type, -1, data));
+			stream.flush();
+		}
+
+		GameMessage read() throws IOException {
+			return stream.readMessage();
+		}
+
+		GameMessage until(int type) throws IOException {
+			GameMessage message;
+			do {
+				message = read();
+			} while (message.getType() != type);
+			return message;
+		}
+
+		void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	@After
+	public void closeClients() throws IOException {
+		for (Client client : clients) {
+			client.close();
+		}
+	}
+
+	/**
+	 * Starts a server on a free port.
+	 *
+	 * @param gracePeriod
+	 *            the time a lost seat is held, in ms
+	 * @throws Exception
+	 *             if the server does not start
+	 */
+	private void startServer(long gracePeriod) throws Exception {
+		ServerSocket probe = new ServerSocket(0);
+		port = probe.getLocalPort();
+		probe.close();
+
+		final BigTwoServer server = new BigTwoServer(4);
+		server.setGracePeriod(gracePeriod);
+		// no periodic snapshot, so that a client sees only what it asks for
+		server.setSnapshotInterval(0);
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				server.start(port);
+			}
+		}, "test-server");
+		thread.setDaemon(true);
+		thread.start();
+		for (int i = 0; i < 50; i++) {
+			try {
+				new Socket("localhost", port).close();
+				return;
+			} catch (IOException ex) {
+				Thread.sleep(100);
+			}
+		}
+		throw new IOException("The server has not started");
+	}
+
+	/**
+	 * Seats four players at a table and starts a game.
+	 *
+	 * @param players
+	 *            the array receiving the clients, by seat
+	 * @param tokens
+	 *            the array receiving the reconnect tokens, by seat
+	 * @return the START message received by the player of seat 0
+	 * @throws IOException
+	 *             if a client fails
+	 */
+	private GameMessage startGame(Client[] players, long[] tokens)
+			throws IOException {
+		for (int i = 0; i < 4; i++) {
+			Client client = new Client();
+			client.send(CardGameMessage.JOIN, "p" + i);
+			int seat = client.until(CardGameMessage.PLAYER_LIST).getPlayerID();
+			players[seat] = client;
+			names[seat] = "p" + i;
+			tokens[seat] = (Long) client.until(CardGameMessage.SESSION).getData();
+		}
+		for (Client player : players) {
+			player.send(CardGameMessage.READY, null);
+		}
+		GameMessage start = null;
+		for (int i = 3; i >= 0; i--) {
+			start = players[i].until(CardGameMessage.START);
+		}
+		return start;
+	}
+
+	@Test(timeout = 30000)
+	public void testResyncResendsMissedMoves() throws Exception {
+		startServer(30000);
+		Client[] players = new Client[4];
+		GameMessage start = startGame(players, new long[4]);
+		int current = start.getPlayerID();
+		int other = (current + 1) % 4;
+
+		// the first player plays its lowest card, the three of diamonds
+		players[current].send(CardGameMessage.MOVE, new int[] { 0 });
+		GameMessage move = players[other].until(CardGameMessage.MOVE);
+		assertEquals(start.getSequence() + 1, move.getSequence());
+		players[other].send(CardGameMessage.MOVE, null);
+		players[current].until(CardGameMessage.MOVE);
+		GameMessage pass = players[current].until(CardGameMessage.MOVE);
+		assertEquals(start.getSequence() + 2, pass.getSequence());
+
+		// a client that has only applied the START gets the two moves again
+		players[current].send(CardGameMessage.RESYNC,
+				Integer.valueOf(start.getSequence()));
+		GameMessage first = players[current].read();
+		assertEquals(CardGameMessage.MOVE, first.getType());
+		assertEquals(move.getSequence(), first.getSequence());
+		assertEquals(current, first.getPlayerID());
+		GameMessage second = players[current].read();
+		assertEquals(CardGameMessage.MOVE, second.getType());
+		assertEquals(pass.getSequence(), second.getSequence());
+		assertEquals(other, second.getPlayerID());
+
+		// a client that has missed the START gets a snapshot of the game
+		players[other].send(CardGameMessage.RESYNC, Integer.valueOf(0));
+		GameMessage snapshot = players[other].until(CardGameMessage.SNAPSHOT);
+		assertEquals(pass.getSequence(), snapshot.getSequence());
+		// the number of cards of each player, then the last hand on the table
+		int[] data = (int[]) snapshot.getData();
+		assertEquals(12, data[current]);
+		assertEquals(13, data[other]);
+		assertEquals(current, data[4]);
+	}
+
+	@Test(timeout = 30000)
+	public void testResumeWithinGracePeriod() throws Exception {
+		startServer(30000);
+		Client[] players = new Client[4];
+		long[] tokens = new long[4];
+		int current = startGame(players, tokens).getPlayerID();
+		int lost = (current + 1) % 4;
+		int other = (current + 2) % 4;
+
+		players[lost].close();
+		// the others are told, but the seat is held
+		players[other].until(CardGameMessage.MSG);
+
+		Client back = new Client();
+		back.send(CardGameMessage.RESUME, Long.valueOf(tokens[lost]));
+		GameMessage resume = back.read();
+		assertEquals(CardGameMessage.RESUME, resume.getType());
+		assertEquals(lost, resume.getPlayerID());
+		assertArrayEquals(names, (String[]) resume.getData());
+		assertNotEquals(0, resume.getSequence());
+		GameMessage snapshot = back.until(CardGameMessage.SNAPSHOT);
+		assertEquals(resume.getSequence(), snapshot.getSequence());
+		// the snapshot ends with the cards of the seat
+		int[] data = (int[]) snapshot.getData();
+		assertEquals(13, data[lost]);
+		assertEquals(13, data.length - (6 + data[5]));
+		// a new token replaces the one used
+		long token = (Long) back.until(CardGameMessage.SESSION).getData();
+		assertNotEquals(tokens[lost], token);
+
+		// the resumed seat plays on, and no QUIT has been sent to the table
+		players[current].send(CardGameMessage.MOVE, new int[] { 0 });
+		back.until(CardGameMessage.MOVE);
+		back.send(CardGameMessage.MOVE, null);
+		GameMessage message;
+		do {
+			message = players[other].read();
+			assertTrue(message.getType() != CardGameMessage.QUIT);
+		} while (message.getType() != CardGameMessage.MOVE
+				|| message.getPlayerID() != lost);
+	}
+
+	@Test(timeout = 30000)
+	public void testResumeAfterGracePeriod() throws Exception {
+		startServer(300);
+		Client[] players = new Client[4];
+		long[] tokens = new long[4];
+		int current = startGame(players, tokens).getPlayerID();
+		int lost = (current + 1) % 4;
+
+		players[lost].close();
+		// the seat is freed once the grace period is over
+		assertEquals(lost, players[current].until(CardGameMessage.QUIT)
+				.getPlayerID());
+
+		Client late = new Client();
+		late.send(CardGameMessage.RESUME, Long.valueOf(tokens[lost]));
+		GameMessage resume = late.read();
+		assertEquals(CardGameMessage.RESUME, resume.getType());
+		assertEquals(-1, resume.getPlayerID());
+		// the client is seated as a new player
+		GameMessage list = late.read();
+		assertEquals(CardGameMessage.PLAYER_LIST, list.getType());
+		assertTrue(list.getPlayerID() >= 0);
+	}
+}
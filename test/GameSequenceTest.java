@@ -0,0 +1,84 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests how the client follows the sequence numbers of the changes of state,
+ * and when it asks the server to resynchronize.
+ *
+ * @author DaveMatthew
+ *
+ */
+public class GameSequenceTest {
+	private final GameSequence sequence = new GameSequence();
+
+	@Test
+	public void testChangesInOrder() {
+		sequence.moveTo(1);
+		assertEquals(GameSequence.APPLY, sequence.check(2));
+		assertEquals(GameSequence.APPLY, sequence.check(3));
+		assertEquals(3, sequence.getLastSequence());
+	}
+
+	@Test
+	public void testUnsequencedChange() {
+		assertEquals(GameSequence.APPLY, sequence.check(0));
+		assertEquals(0, sequence.getLastSequence());
+	}
+
+	@Test
+	public void testChangeAlreadyApplied() {
+		sequence.moveTo(4);
+		assertEquals(GameSequence.SKIP, sequence.check(4));
+		assertEquals(GameSequence.SKIP, sequence.check(2));
+		assertEquals(4, sequence.getLastSequence());
+	}
+
+	@Test
+	public void testGapAsksForResyncOnce() {
+		sequence.moveTo(1);
+		assertEquals(GameSequence.APPLY, sequence.check(2));
+		// change 3 has been missed
+		assertEquals(GameSequence.RESYNC, sequence.check(4));
+		assertEquals(2, sequence.getLastSequence());
+		// the later changes wait for the answer of the server
+		assertEquals(GameSequence.SKIP, sequence.check(5));
+		// the server resends the missed changes
+		assertEquals(GameSequence.APPLY, sequence.check(3));
+		assertEquals(GameSequence.APPLY, sequence.check(4));
+		assertEquals(GameSequence.APPLY, sequence.check(5));
+		// a new gap is reported again
+		assertEquals(GameSequence.RESYNC, sequence.check(7));
+	}
+
+	@Test
+	public void testSnapshotClosesGap() {
+		sequence.moveTo(1);
+		assertEquals(GameSequence.RESYNC, sequence.check(3));
+		assertFalse(sequence.isStale(5));
+		sequence.moveTo(5);
+		assertEquals(GameSequence.SKIP, sequence.check(3));
+		assertEquals(GameSequence.APPLY, sequence.check(6));
+		assertEquals(GameSequence.RESYNC, sequence.check(8));
+	}
+
+	@Test
+	public void testStaleSnapshot() {
+		sequence.moveTo(6);
+		assertTrue(sequence.isStale(5));
+		assertFalse(sequence.isStale(6));
+	}
+
+	@Test
+	public void testReset() {
+		sequence.moveTo(9);
+		assertEquals(GameSequence.RESYNC, sequence.check(11));
+		// the client joins another table, whose changes start again
+		sequence.reset();
+		assertEquals(0, sequence.getLastSequence());
+		assertEquals(GameSequence.APPLY, sequence.check(1));
+		assertEquals(GameSequence.RESYNC, sequence.check(3));
+	}
+}
@@ -0,0 +1,192 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the policies of the OutboundQueue for a full queue.
+ *
+ * @author Kenneth Wong
+ *
+ */
+public class OutboundQueueTest {
+	private final OutboundQueue.Stats stats = new OutboundQueue.Stats();
+
+	/**
+	 * Creates a queue holding messages of the specified types.
+	 *
+	 * @param capacity
+	 *            the capacity of the queue
+	 * @param policy
+	 *            the policy of the queue
+	 * @param types
+	 *            the types of the messages queued
+	 * @return the queue
+	 */
+	private OutboundQueue queue(int capacity, OutboundQueue.Policy policy,
+			int... types) {
+		OutboundQueue queue = new OutboundQueue(capacity, policy, stats);
+		for (int type : types) {
+			assertTrue(queue.offer(message(type)));
+		}
+		return queue;
+	}
+
+	/**
+	 * Creates an encoded message of the specified type.
+	 *
+	 * @param type
+	 *            the type of the message
+	 * @return the message
+	 */
+	private static EncodedMessage message(int type) {
+		return new EncodedMessage(type, new byte[] { (byte) type });
+	}
+
+	/**
+	 * Removes the messages of a queue and returns their types.
+	 *
+	 * @param queue
+	 *            the queue
+	 * @return the types of the messages, in order
+	 */
+	private static int[] drain(OutboundQueue queue) {
+		int[] types = new int[queue.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = queue.poll().getType();
+		}
+		assertNull(queue.poll());
+		return types;
+	}
+
+	@Test
+	public void testDisconnect() {
+		OutboundQueue queue = queue(2, OutboundQueue.Policy.DISCONNECT,
+				CardGameMessage.MOVE, CardGameMessage.MSG);
+		assertFalse(queue.offer(message(CardGameMessage.MSG)));
+		assertTrue(queue.isClosed());
+		assertEquals(0, queue.size());
+		assertEquals(1, stats.getNumOfEvicted());
+		assertEquals(0, stats.getNumOfDropped());
+		// a closed queue refuses every message
+		assertFalse(queue.offer(message(CardGameMessage.MOVE)));
+	}
+
+	@Test
+	public void testDropChat() {
+		OutboundQueue queue = queue(3, OutboundQueue.Policy.DROP_CHAT,
+				CardGameMessage.MSG, CardGameMessage.MOVE, CardGameMessage.MSG);
+		// a new chat message is dropped
+		assertTrue(queue.offer(message(CardGameMessage.MSG)));
+		assertEquals(1, stats.getNumOfDropped());
+		// any other message makes room by dropping the queued chat
+		assertTrue(queue.offer(message(CardGameMessage.MOVE)));
+		assertEquals(3, stats.getNumOfDropped());
+		assertArrayEquals(new int[] { CardGameMessage.MOVE,
+				CardGameMessage.MOVE }, drain(queue));
+		assertEquals(0, stats.getNumOfEvicted());
+	}
+
+	@Test
+	public void testDropChatFallsBackOnDisconnect() {
+		OutboundQueue queue = queue(2, OutboundQueue.Policy.DROP_CHAT,
+				CardGameMessage.MOVE, CardGameMessage.MOVE);
+		assertFalse(queue.offer(message(CardGameMessage.MOVE)));
+		assertTrue(queue.isClosed());
+		assertEquals(1, stats.getNumOfEvicted());
+	}
+
+	@Test
+	public void testCoalesceStart() {
+		OutboundQueue queue = queue(4, OutboundQueue.Policy.COALESCE,
+				CardGameMessage.START, CardGameMessage.MOVE,
+				CardGameMessage.ILLEGAL, CardGameMessage.MSG);
+		assertTrue(queue.offer(message(CardGameMessage.START)));
+		assertArrayEquals(new int[] { CardGameMessage.MSG,
+				CardGameMessage.START }, drain(queue));
+		assertEquals(3, stats.getNumOfDropped());
+	}
+
+	@Test
+	public void testCoalesceSnapshot() {
+		OutboundQueue queue = queue(4, OutboundQueue.Policy.COALESCE,
+				CardGameMessage.START, CardGameMessage.MOVE, CardGameMessage.MSG,
+				CardGameMessage.MOVE);
+		assertTrue(queue.offer(message(CardGameMessage.SNAPSHOT)));
+		assertArrayEquals(new int[] { CardGameMessage.START,
+				CardGameMessage.MSG, CardGameMessage.SNAPSHOT }, drain(queue));
+		assertEquals(2, stats.getNumOfDropped());
+	}
+
+	@Test
+	public void testCoalescePlayerList() {
+		OutboundQueue queue = queue(2, OutboundQueue.Policy.COALESCE,
+				CardGameMessage.PLAYER_LIST, CardGameMessage.READY);
+		assertTrue(queue.offer(message(CardGameMessage.PLAYER_LIST)));
+		assertArrayEquals(new int[] { CardGameMessage.READY,
+				CardGameMessage.PLAYER_LIST }, drain(queue));
+		assertEquals(1, stats.getNumOfDropped());
+	}
+
+	@Test
+	public void testCoalesceFallsBackOnDropChat() {
+		OutboundQueue queue = queue(2, OutboundQueue.Policy.COALESCE,
+				CardGameMessage.MSG, CardGameMessage.READY);
+		// nothing is superseded by a MOVE, so the chat makes room
+		assertTrue(queue.offer(message(CardGameMessage.MOVE)));
+		assertArrayEquals(new int[] { CardGameMessage.READY,
+				CardGameMessage.MOVE }, drain(queue));
+		assertEquals(0, stats.getNumOfEvicted());
+	}
+
+	@Test
+	public void testNoCoalescingBelowCapacity() {
+		// a client that keeps up receives every message
+		OutboundQueue queue = queue(8, OutboundQueue.Policy.COALESCE,
+				CardGameMessage.START, CardGameMessage.MOVE, CardGameMessage.MOVE,
+				CardGameMessage.SNAPSHOT, CardGameMessage.START);
+		assertEquals(5, drain(queue).length);
+		assertEquals(0, stats.getNumOfDropped());
+	}
+
+	@Test
+	public void testCloseKeepsQueuedMessages() throws InterruptedException {
+		OutboundQueue queue = queue(4, OutboundQueue.Policy.DISCONNECT,
+				CardGameMessage.MOVE);
+		queue.close();
+		assertFalse(queue.offer(message(CardGameMessage.MSG)));
+		assertEquals(CardGameMessage.MOVE, queue.take().getType());
+		// a closed and empty queue does not block
+		assertNull(queue.take());
+	}
+
+	@Test
+	public void testClearDropsQueuedMessages() throws InterruptedException {
+		OutboundQueue queue = queue(4, OutboundQueue.Policy.DISCONNECT,
+				CardGameMessage.MOVE);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.take());
+	}
+
+	@Test(timeout = 5000)
+	public void testTakeWaitsForMessage() throws InterruptedException {
+		final OutboundQueue queue = queue(4, OutboundQueue.Policy.DISCONNECT);
+		Thread producer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException ex) {
+					// offers at once
+				}
+				queue.offer(message(CardGameMessage.MSG));
+			}
+		});
+		producer.start();
+		assertEquals(CardGameMessage.MSG, queue.take().getType());
+		producer.join();
+	}
+}